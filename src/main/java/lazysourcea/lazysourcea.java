@@ -1,6 +1,13 @@
 package lazysourcea;
 
-import java.util.ArrayList;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import lazysourcea.parser.Parser;
 import lazysourcea.storage.Storage;
@@ -11,6 +18,7 @@ import lazysourcea.task.TaskList;
 import lazysourcea.task.Todo;
 import lazysourcea.ui.Ui;
 import lazysourcea.logic.CommandExecutor;
+import lazysourcea.logic.ListCursor;
 
 /**
  * UI-agnostic core orchestrator for Lazysourcea. Holds the persistent
@@ -23,23 +31,50 @@ import lazysourcea.logic.CommandExecutor;
  * (e.g., JavaFX) can close the app.
  */
 public class lazysourcea {
+    private static final int WRITE_BEHIND_BATCH = 256;
+    private static final Duration DEADLINE_REMINDER_LEAD = Duration.ofDays(1);
+    private static final Duration EVENT_REMINDER_LEAD = Duration.ofMinutes(30);
+
     // --- fields for shared core state ---
     private final Storage storage;
     private final TaskList taskList;
     private final Parser parser;
+    private int loadErrorsShown;
+    private final ListCursor cursor = new ListCursor();
 
-    private boolean isExit = false;
+    private volatile boolean isExit = false;
+    private boolean remindersEnabled;
 
     // --- JavaFX-friendly constructor (no console I/O) ---
     public lazysourcea(String dataDir, String fileName) {
+        this(dataDir, fileName, 0);
+    }
+
+    /**
+     * Creates the core with write-behind persistence.
+     *
+     * @param dataDir           directory holding the data file
+     * @param fileName          name of the data file
+     * @param flushWindowMillis durability window for the background flusher;
+     *                          {@code 0} writes every mutation synchronously
+     */
+    public lazysourcea(String dataDir, String fileName, long flushWindowMillis) {
         this.storage = new Storage(dataDir, fileName);
-        this.taskList = new TaskList();
+        if (flushWindowMillis > 0) {
+            storage.enableWriteBehind(flushWindowMillis, WRITE_BEHIND_BATCH);
+        }
+        this.taskList = new TaskList(storage.loadLazily());
         this.parser = new Parser();
+    }
 
-        ArrayList<Task> loaded = storage.load();
-        for (Task t : loaded) {
-            taskList.addTask(t);
-        }
+    /**
+     * Lets {@link #getResponse(String)} be called from several threads at
+     * once, e.g. one per connected session. Commands that change the list
+     * run one at a time, while queries share the list and always see whole
+     * changes. Loads the whole task list into memory.
+     */
+    public void enableConcurrentAccess() {
+        taskList.enableConcurrentAccess();
     }
 
     /**
@@ -47,6 +82,18 @@ public class lazysourcea {
      * No printing, no blocking loop.
      */
     public String getResponse(String input) {
+        return getResponse(input, cursor);
+    }
+
+    /**
+     * Processes a single user input for a client that keeps its own place
+     * in the paged task list.
+     *
+     * @param input  the command line
+     * @param cursor the client's list position
+     * @return the reply
+     */
+    public String getResponse(String input, ListCursor cursor) {
         Parser.Parsed parsed = parser.parse(input);
 
         StringBuilder sb = new StringBuilder();
@@ -55,15 +102,110 @@ public class lazysourcea {
         };
 
         CommandExecutor exec =
-                new CommandExecutor(taskList, storage, parser, out);
+                new CommandExecutor(taskList, storage, parser, out, cursor);
 
         boolean exit = exec.execute(parsed, out);
         this.isExit = exit;
+        Ui ui = new Ui(out);
+        showNewLoadErrors(ui);
+        String writeError = storage.takeWriteError();
+        if (writeError != null) {
+            ui.showSaveError(writeError);
+        }
+
+        return sb.toString().trim();
+    }
+
+
 
+    /**
+     * Returns the reminders that have come due by {@code now}, for the
+     * caller to show, e.g. from a timer that fires every minute. Deadlines
+     * are reminded on the day they are due and events half an hour before
+     * they start; each reminder is given once. The first call starts the
+     * reminders and gives those already due.
+     *
+     * @param now the current time
+     * @return the reminder text, or an empty string if nothing is due
+     */
+    public synchronized String getReminders(LocalDateTime now) {
+        if (!remindersEnabled) {
+            taskList.enableReminders(now, DEADLINE_REMINDER_LEAD, EVENT_REMINDER_LEAD);
+            remindersEnabled = true;
+        }
+        StringBuilder sb = new StringBuilder();
+        Ui ui = new Ui(line -> {
+            if (line != null) sb.append(line).append(System.lineSeparator());
+        });
+        taskList.write(() -> {
+            ui.showReminders(taskList, taskList.remind(now));
+            return null;
+        });
         return sb.toString().trim();
     }
 
+    /**
+     * Executes every command read from {@code in} in one pass, writing the
+     * replies to {@code out}.
+     * <p>
+     * Mutations are committed to storage as a group every {@code commitEvery}
+     * commands and once more at the end, instead of after each command.
+     * Reading stops at end of input or after a {@code bye}.
+     *
+     * @param in          source of commands, one per line
+     * @param out         destination for replies; flushed but not closed
+     * @param commitEvery number of commands per storage commit, or {@code 0}
+     *                    to commit only at the end
+     * @return the number of commands executed
+     * @throws IOException if reading or writing fails
+     */
+    public int runBatch(BufferedReader in, Writer out, int commitEvery) throws IOException {
+        PrintWriter pw = new PrintWriter(out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16));
+        java.util.function.Consumer<String> sink = line -> {
+            if (line != null) {
+                pw.println(line);
+            }
+        };
+        // Output is streamed, so a list is shown in full rather than paged.
+        CommandExecutor exec = new CommandExecutor(taskList, storage, parser, sink, new ListCursor(0));
+        int count = 0;
+        storage.beginBatch();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                count++;
+                isExit = exec.execute(parser.parse(line), sink);
+                if (isExit) {
+                    break;
+                }
+                if (commitEvery > 0 && count % commitEvery == 0) {
+                    storage.flush();
+                }
+            }
+        } finally {
+            storage.endBatch();
+            pw.flush();
+        }
+        if (pw.checkError()) {
+            throw new IOException("could not write batch output");
+        }
+        return count;
+    }
 
+    /**
+     * Flushes any buffered mutations and stops background persistence.
+     * Call once when the application shuts down.
+     *
+     * @throws java.io.UncheckedIOException if buffered mutations could not be
+     *                                      written; they are kept, so calling
+     *                                      again tries once more
+     */
+    public void shutdown() {
+        storage.close();
+    }
 
     /** For JavaFX to check if it should close the window after showing the reply. */
     public boolean isExit() {
@@ -74,7 +216,25 @@ public class lazysourcea {
         var sb = new StringBuilder();
         var ui = new Ui(line -> { if (line != null) sb.append(line).append(System.lineSeparator()); });
         ui.showWelcome();
+        List<String> errors = storage.getLoadErrors();
+        ui.showLoadErrors(errors);
+        synchronized (this) {
+            loadErrorsShown = Math.max(loadErrorsShown, errors.size());
+        }
         return sb.toString().trim();
     }
 
+    /**
+     * Shows the load errors found since they were last shown. A lazily
+     * loaded save file only reports a broken record once a command first
+     * touches it, which can be long after the welcome message.
+     */
+    private synchronized void showNewLoadErrors(Ui ui) {
+        List<String> errors = storage.getLoadErrors();
+        if (errors.size() > loadErrorsShown) {
+            ui.showLoadErrors(errors.subList(loadErrorsShown, errors.size()));
+            loadErrorsShown = errors.size();
+        }
+    }
+
 }
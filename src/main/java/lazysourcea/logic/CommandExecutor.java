@@ -1,8 +1,12 @@
 package lazysourcea.logic;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 
 import lazysourcea.parser.Parser;
+import lazysourcea.storage.JournalEntry;
 import lazysourcea.storage.Storage;
 import lazysourcea.task.*;
 import lazysourcea.ui.Ui;
@@ -21,6 +25,7 @@ public class CommandExecutor {
     private final Storage storage;
     private final Parser parser;
     private final Ui ui;
+    private final ListCursor cursor;
 
     /**
      * Creates a command executor that writes user-visible lines to the given
@@ -33,15 +38,32 @@ public class CommandExecutor {
      *                 (e.g., collected for JavaFX rendering)
      */
     public CommandExecutor(TaskList taskList, Storage storage, Parser parser, Consumer<String> out) {
+        this(taskList, storage, parser, out, new ListCursor());
+    }
+
+    /**
+     * Creates a command executor that pages {@code list} output with the
+     * given cursor, so that {@code list next} continues where the previous
+     * executor sharing it stopped.
+     *
+     * @param taskList the in-memory task list to read/mutate
+     * @param storage  the storage used to persist mutations
+     * @param parser   helper for parsing indices and sub-arguments
+     * @param out      sink that receives formatted output lines
+     * @param cursor   the client's list position
+     */
+    public CommandExecutor(TaskList taskList, Storage storage, Parser parser, Consumer<String> out,
+            ListCursor cursor) {
         this.taskList = taskList;
         this.storage = storage;
         this.parser = parser;
         this.ui = new Ui(out);
+        this.cursor = cursor;
     }
 
     /**
      * Executes one parsed command, emitting formatted lines to the configured
-     * output sink. Mutating commands save the task list to storage. Errors are
+     * output sink. Mutating commands are journaled to storage. Errors are
      * reported as human-friendly messages; exceptions are handled internally.
      *
      * @param parsed     the already-parsed command and its argument(s)
@@ -51,33 +73,65 @@ public class CommandExecutor {
      *         {@code false} otherwise
      */
     public boolean execute(Parser.Parsed parsed, Consumer<String> outForList) {
+        switch (parsed.type) {
+        case TODO:
+        case DEADLINE:
+        case EVENT:
+        case MARK:
+        case UNMARK:
+        case DELETE:
+        case UNDO:
+        case REDO:
+            // The task numbers a command resolves, its changes and its journal
+            // entries must not interleave with another session's command.
+            return taskList.write(() -> dispatch(parsed, outForList));
+        default:
+            return dispatch(parsed, outForList);
+        }
+    }
+
+    private boolean dispatch(Parser.Parsed parsed, Consumer<String> outForList) {
         switch (parsed.type) {
         case BYE:
+            storage.flush();
             ui.showBye();
             return true;
         case LIST:
-            taskList.listTasks(outForList);
+            Parser.ListArgs list;
+            try {
+                list = parser.parseListArgs(parsed.arg);
+            } catch (IllegalArgumentException e) {
+                ui.showError("list what? use: list [done|pending|todos|deadlines|events]"
+                        + " [by date|status|type] [page <n>|all]  or  list next");
+                return false;
+            }
+            showList(list, outForList);
+            return false;
+        case STATS:
+            ui.showStats(taskList);
             return false;
         case MARK:
             try {
-                int index = parser.parseIndex(parsed.arg, taskList.listSize());
-                Task t = taskList.getTask(index);
-                t.markDone();
-                storage.save(taskList.asList());
-                ui.showMarked(t);
+                List<Task> marked = setDone(parser.parseIndices(parsed.arg, taskList.listSize()), true);
+                if (marked.size() == 1) {
+                    ui.showMarked(marked.get(0));
+                } else {
+                    ui.showMarked(marked);
+                }
             } catch (NumberFormatException | IndexOutOfBoundsException e) {
-                ui.showError("invalid task number. use: mark <number>");
+                ui.showError("invalid task number. use: mark <number> (e.g., mark 2 or mark 1-3,5)");
             }
             return false;
         case UNMARK:
             try {
-                int index = parser.parseIndex(parsed.arg, taskList.listSize());
-                Task t = taskList.getTask(index);
-                t.markNotDone();
-                storage.save(taskList.asList());
-                ui.showUnmarked(t);
+                List<Task> unmarked = setDone(parser.parseIndices(parsed.arg, taskList.listSize()), false);
+                if (unmarked.size() == 1) {
+                    ui.showUnmarked(unmarked.get(0));
+                } else {
+                    ui.showUnmarked(unmarked);
+                }
             } catch (NumberFormatException | IndexOutOfBoundsException e) {
-                ui.showError("invalid task number. use: unmark <number>");
+                ui.showError("invalid task number. use: unmark <number> (e.g., unmark 2 or unmark 1-3,5)");
             }
             return false;
         case TODO:
@@ -86,7 +140,7 @@ public class CommandExecutor {
             } else {
                 Task todo = new Todo(parsed.arg);
                 taskList.addTask(todo);
-                storage.save(taskList.asList());
+                storage.append(JournalEntry.add(todo), taskList.asList());
                 ui.showAdded(todo, taskList.listSize());
             }
             return false;
@@ -95,7 +149,7 @@ public class CommandExecutor {
                 Parser.DeadlineArgs d = parser.parseDeadlineArgs(parsed.arg);
                 Task deadline = new Deadline(d.desc, d.by);
                 taskList.addTask(deadline);
-                storage.save(taskList.asList());
+                storage.append(JournalEntry.add(deadline), taskList.asList());
                 ui.showAdded(deadline, taskList.listSize());
             } catch (Exception e) {
                 ui.showError("oi.. invalid deadline format.\nuse: deadline <desc> /by <time>"
@@ -105,33 +159,61 @@ public class CommandExecutor {
         case EVENT:
             try {
                 Parser.EventArgs ev = parser.parseEventArgs(parsed.arg);
-                Task event = new Event(ev.desc, ev.from, ev.to);
+                Event event = new Event(ev.desc, ev.from, ev.to, ev.start, ev.end);
                 taskList.addTask(event);
-                storage.save(taskList.asList());
+                storage.append(JournalEntry.add(event), taskList.asList());
                 ui.showAdded(event, taskList.listSize());
+                ui.showConflicts(taskList, taskList.conflictsWith(event));
             } catch (Exception e) {
                 ui.showError("oi.. invalid event format.\nuse: event <desc> /from <time> /to <time>");
             }
             return false;
         case DELETE:
             try {
-                int index = parser.parseIndex(parsed.arg, taskList.listSize());
-                Task removed = taskList.removeTask(index);
-                storage.save(taskList.asList());
-                ui.showDeleted(removed, taskList.listSize());
+                List<Task> removed = delete(parser.parseIndices(parsed.arg, taskList.listSize()));
+                if (removed.size() == 1) {
+                    ui.showDeleted(removed.get(0), taskList.listSize());
+                } else {
+                    ui.showDeleted(removed, taskList.listSize());
+                }
             } catch (NumberFormatException e) {
-                ui.showError("oi.. give valid task number pls.\nUsage: delete <number>");
+                ui.showError("oi.. give valid task number pls.\nUsage: delete <number> (e.g., delete 3 or delete 4,9,12-20)");
             } catch (IndexOutOfBoundsException e) {
                 ui.showError("task number out of range lah.");
             }
             return false;
+        case UNDO:
+            ui.showUndone(replay(true));
+            return false;
+        case REDO:
+            ui.showRedone(replay(false));
+            return false;
         case FIND:
-            if (parsed.arg.isEmpty()) {
-                ui.showError("usage: find <keyword>");
+            if (parsed.arg.isEmpty() || parsed.arg.equals("~")) {
+                ui.showError("usage: find <keyword>  or  find ~<keyword>");
+            } else if (parsed.arg.startsWith("~")) {
+                ui.showFuzzyFindResults(taskList, parsed.arg.substring(1).strip());
             } else {
                 ui.showFindResults(taskList, parsed.arg);
             }
             return false;
+        case DUE:
+            try {
+                Parser.DueArgs due = parser.parseDueArgs(parsed.arg);
+                ui.showDueResults(taskList, due.from, due.to);
+            } catch (Exception e) {
+                ui.showError("oi.. invalid due format.\nuse: due <date>  or  due <from> <to>"
+                        + "\naccepted: yyyy-MM-dd (e.g., 2019-10-15) or d/M/yyyy (e.g., 2/12/2019)");
+            }
+            return false;
+        case ON:
+            try {
+                ui.showOnResults(taskList, parser.parseOnArgs(parsed.arg));
+            } catch (Exception e) {
+                ui.showError("oi.. invalid date.\nuse: on <date>"
+                        + "\naccepted: yyyy-MM-dd (e.g., 2019-10-15) or d/M/yyyy (e.g., 2/12/2019)");
+            }
+            return false;
         case HELP:
             if (parsed.arg == null || parsed.arg.isBlank()) {
                 ui.showHelp();
@@ -144,4 +226,104 @@ public class CommandExecutor {
             return false;
         }
     }
+
+    /**
+     * Marks or unmarks the tasks at {@code indices} and journals them as one
+     * storage batch, so the whole command costs a single write.
+     *
+     * @return the affected tasks, in list order
+     */
+    private List<Task> setDone(int[] indices, boolean isDone) {
+        List<Task> changed = new ArrayList<>(indices.length);
+        storage.beginBatch();
+        try {
+            for (int index : indices) {
+                if (isDone) {
+                    changed.add(taskList.markTask(index));
+                    storage.append(JournalEntry.mark(index), taskList.asList());
+                } else {
+                    changed.add(taskList.unmarkTask(index));
+                    storage.append(JournalEntry.unmark(index), taskList.asList());
+                }
+            }
+        } finally {
+            storage.endBatch();
+        }
+        return changed;
+    }
+
+    /**
+     * Shows the requested page of the list, or all of it if asked to or if
+     * the cursor does not page.
+     */
+    private void showList(Parser.ListArgs args, Consumer<String> out) {
+        TaskList.Filter filter = args.next ? cursor.filter() : args.filter;
+        TaskList.Order order = args.next ? cursor.order() : args.order;
+        if (args.all || cursor.pageSize() == 0) {
+            taskList.listTasks(filter, order, out);
+            return;
+        }
+        int page = args.next ? cursor.page() + 1 : args.page;
+        int size = cursor.pageSize();
+        List<String> lines = new ArrayList<>(size);
+        int total = taskList.listWindow(filter, order, (int) Math.min(Integer.MAX_VALUE, (page - 1L) * size),
+                size, lines::add);
+        int pages = (total + size - 1) / size;
+        if (page <= pages) {
+            cursor.moveTo(filter, order, page);
+        }
+        ui.showPage(filter == null ? null : filter.label(), order == null ? null : order.label(),
+                lines, page, pages, out);
+    }
+
+    /**
+     * Undoes or redoes the latest step and journals each change as it is
+     * made, as one storage batch.
+     *
+     * @return the changes made, in order
+     */
+    private List<Change> replay(boolean undo) {
+        storage.beginBatch();
+        try {
+            Consumer<Change> journal = c -> storage.append(toJournalEntry(c), taskList.asList());
+            return undo ? taskList.undo(journal) : taskList.redo(journal);
+        } finally {
+            storage.endBatch();
+        }
+    }
+
+    private static JournalEntry toJournalEntry(Change c) {
+        switch (c.kind) {
+        case ADD:
+            return JournalEntry.insert(c.index, c.task);
+        case REMOVE:
+            return JournalEntry.delete(c.index);
+        case MARK:
+            return JournalEntry.mark(c.index);
+        default:
+            return JournalEntry.unmark(c.index);
+        }
+    }
+
+    /**
+     * Deletes the tasks at {@code indices} as one storage batch. Tasks are
+     * removed from the highest index down, so every index (including the
+     * journaled ones) still refers to the intended task when it is applied.
+     *
+     * @param indices distinct indices in ascending order
+     * @return the removed tasks, in their former list order
+     */
+    private List<Task> delete(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        storage.beginBatch();
+        try {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                removed[i] = taskList.removeTask(indices[i]);
+                storage.append(JournalEntry.delete(indices[i]), taskList.asList());
+            }
+        } finally {
+            storage.endBatch();
+        }
+        return Arrays.asList(removed);
+    }
 }
@@ -0,0 +1,87 @@
+package lazysourcea.logic;
+
+import lazysourcea.task.TaskList;
+
+/**
+ * Remembers which page of the task list a client saw last, so that
+ * {@code list next} can continue from it.
+ * <p>
+ * Each client that pages through the list keeps its own cursor and hands
+ * it to every {@link CommandExecutor} it creates. A cursor with no page
+ * size lists everything at once, which suits headless callers that stream
+ * the output anyway.
+ */
+public class ListCursor {
+    /** Tasks per page unless a cursor says otherwise. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final int pageSize;
+    private TaskList.Filter filter;
+    private TaskList.Order order;
+    private int page;
+
+    /**
+     * Creates a cursor with {@link #DEFAULT_PAGE_SIZE} tasks per page.
+     */
+    public ListCursor() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a cursor with the given page size.
+     *
+     * @param pageSize tasks per page, or {@code 0} to list everything at once
+     */
+    public ListCursor(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the number of tasks per page.
+     *
+     * @return the page size, or {@code 0} if listing is not paged
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the subset shown last.
+     *
+     * @return the filter, or {@code null} for every task
+     */
+    public TaskList.Filter filter() {
+        return filter;
+    }
+
+    /**
+     * Returns the order shown last.
+     *
+     * @return the order, or {@code null} for list order
+     */
+    public TaskList.Order order() {
+        return order;
+    }
+
+    /**
+     * Returns the page shown last.
+     *
+     * @return the one-based page number, or {@code 0} if nothing was shown yet
+     */
+    public int page() {
+        return page;
+    }
+
+    /**
+     * Records that {@code page} of {@code filter} in {@code order} was shown.
+     *
+     * @param filter the subset shown, or {@code null} for every task
+     * @param order  the order shown, or {@code null} for list order
+     * @param page   the one-based page number
+     */
+    public void moveTo(TaskList.Filter filter, TaskList.Order order, int page) {
+        this.filter = filter;
+        this.order = order;
+        this.page = page;
+    }
+}
@@ -1,8 +1,11 @@
 package lazysourcea.parser;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+import lazysourcea.task.DateParser;
+import lazysourcea.task.TaskList;
 
 /**
  * Parses raw user input into structured commands and arguments.
@@ -21,14 +24,29 @@ public class Parser {
      * Enumeration of supported command types.
      */
     public enum CommandType {
-        BYE, LIST, TODO, DEADLINE, EVENT, MARK, UNMARK, DELETE, HELP, UNKNOWN, FIND
+        BYE, LIST, TODO, DEADLINE, EVENT, MARK, UNMARK, DELETE, HELP, UNKNOWN, FIND, DUE, ON, STATS, UNDO, REDO
     }
 
-    private static final DateTimeFormatter IN_ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter IN_SLASH = DateTimeFormatter.ofPattern("d/M/yyyy");
+    private static final String[] KEYWORDS = {
+        "bye", "list", "todo", "deadline", "event", "mark", "unmark", "delete", "help", "find", "due", "on", "stats",
+        "undo", "redo"
+    };
+    private static final CommandType[] KEYWORD_TYPES = {
+        CommandType.BYE, CommandType.LIST, CommandType.TODO, CommandType.DEADLINE, CommandType.EVENT,
+        CommandType.MARK, CommandType.UNMARK, CommandType.DELETE, CommandType.HELP, CommandType.FIND,
+        CommandType.DUE, CommandType.ON, CommandType.STATS, CommandType.UNDO, CommandType.REDO
+    };
+    private static final String BY = "/by";
+    private static final String FROM = "/from";
+    private static final String TO = "/to";
 
     /**
      * Parses a raw input string into a structured {@link Parsed} object.
+     * <p>
+     * The input is scanned once by index: the command word is matched
+     * case-insensitively against the keyword table in place, and only the
+     * argument string is copied out. No regex, array or lower-cased copy of
+     * the input is created.
      *
      * @param raw the raw user input string
      * @return a {@code Parsed} object containing the command type, arguments, and raw input
@@ -37,43 +55,33 @@ public class Parser {
         if (raw == null) {
             raw = "";
         }
-        String[] parts = raw.trim().split(" ", 2);
-        String cmd = parts[0].toLowerCase();
-        String arg = (parts.length > 1) ? parts[1].trim() : "";
-        return new Parsed(toType(cmd), arg, raw.trim());
+        String line = raw.trim();
+        int n = line.length();
+        int cmdEnd = line.indexOf(' ');
+        if (cmdEnd < 0) {
+            cmdEnd = n;
+        }
+        CommandType type = toType(line, cmdEnd);
+        String arg = cmdEnd < n ? slice(line, cmdEnd + 1, n) : "";
+        return new Parsed(type, arg, line);
     }
 
     /**
-     * Maps a command word string to a {@link CommandType}.
+     * Maps the command word {@code line[0, end)} to a {@link CommandType}
+     * without copying it.
      *
-     * @param cmd the command word
+     * @param line the trimmed input line
+     * @param end  exclusive end of the command word
      * @return the corresponding {@code CommandType}, or {@code UNKNOWN} if not recognized
      */
-    private CommandType toType(String cmd) {
-        switch (cmd) {
-        case "bye":
-            return CommandType.BYE;
-        case "list":
-            return CommandType.LIST;
-        case "todo":
-            return CommandType.TODO;
-        case "deadline":
-            return CommandType.DEADLINE;
-        case "event":
-            return CommandType.EVENT;
-        case "mark":
-            return CommandType.MARK;
-        case "unmark":
-            return CommandType.UNMARK;
-        case "delete":
-            return CommandType.DELETE;
-        case "help":
-            return CommandType.HELP;
-        case "find":
-            return CommandType.FIND;
-        default:
-            return CommandType.UNKNOWN;
+    private static CommandType toType(String line, int end) {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            String kw = KEYWORDS[i];
+            if (kw.length() == end && line.regionMatches(true, 0, kw, 0, end)) {
+                return KEYWORD_TYPES[i];
+            }
         }
+        return CommandType.UNKNOWN;
     }
 
     /**
@@ -86,39 +94,236 @@ public class Parser {
      * @throws IllegalArgumentException if the description is empty or "/by" is missing
      */
     public DeadlineArgs parseDeadlineArgs(String argument) {
-        String[] parts = argument.split("/by", 2);
-        if (parts.length < 2) {
+        int by = argument.indexOf(BY);
+        if (by < 0) {
             throw new IllegalArgumentException("missing /by");
         }
-        String desc = parts[0].trim();
-        LocalDate by = parseDate(parts[1].trim());
+        String desc = slice(argument, 0, by);
+        LocalDate date = parseDate(slice(argument, by + BY.length(), argument.length()));
         if (desc.isEmpty()) {
             throw new IllegalArgumentException("empty description");
         }
-        return new DeadlineArgs(desc, by);
+        return new DeadlineArgs(desc, date);
     }
 
     /**
      * Parses the arguments for an event command.
      * <p>
-     * Expected format: {@code <description> /from <from> /to <to>}
+     * Expected format: {@code <description> /from <from> /to <to>}. As before,
+     * the first two markers found (of either kind) delimit the start and end
+     * fields. Times written as dates (see {@link DateParser#parseDateTime})
+     * are also parsed; other text is kept as is.
      *
      * @param argument the full argument string after the "event" keyword
      * @return an {@link EventArgs} containing the description, start, and end times
-     * @throws IllegalArgumentException if any required part is missing or blank
+     * @throws IllegalArgumentException if any required part is missing or blank,
+     *                                  or typed times end before they start
      */
     public EventArgs parseEventArgs(String argument) {
-        String[] parts = argument.split("/from|/to");
-        if (parts.length < 3) {
+        int first = nextMarker(argument, 0);
+        if (first < 0) {
             throw new IllegalArgumentException("missing /from or /to");
         }
-        String desc = parts[0].trim();
-        String from = parts[1].trim();
-        String to = parts[2].trim();
+        int fromStart = first + markerLength(argument, first);
+        int second = nextMarker(argument, fromStart);
+        if (second < 0) {
+            throw new IllegalArgumentException("missing /from or /to");
+        }
+        int toStart = second + markerLength(argument, second);
+        int third = nextMarker(argument, toStart);
+        String desc = slice(argument, 0, first);
+        String from = slice(argument, fromStart, second);
+        String to = slice(argument, toStart, third < 0 ? argument.length() : third);
         if (desc.isEmpty() || from.isEmpty() || to.isEmpty()) {
             throw new IllegalArgumentException("blank fields");
         }
-        return new EventArgs(desc, from, to);
+        LocalDateTime start = DateParser.parseDateTime(from, false);
+        LocalDateTime end = DateParser.parseDateTime(to, true);
+        if (start != null && end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("event ends before it starts");
+        }
+        return new EventArgs(desc, from, to, start, end);
+    }
+
+    /**
+     * Parses the arguments for a due command.
+     * <p>
+     * Expected format: {@code <date>} for everything due on or before that
+     * date, or {@code <from> <to>} for an inclusive range.
+     *
+     * @param argument the full argument string after the "due" keyword
+     * @return a {@link DueArgs} holding the range
+     * @throws IllegalArgumentException if there are no dates, too many, or the range is reversed
+     * @throws java.time.format.DateTimeParseException if a date cannot be parsed
+     */
+    public DueArgs parseDueArgs(String argument) {
+        String arg = argument.trim();
+        if (arg.isEmpty()) {
+            throw new IllegalArgumentException("missing date");
+        }
+        int space = arg.indexOf(' ');
+        if (space < 0) {
+            return new DueArgs(null, parseDate(arg));
+        }
+        String second = slice(arg, space + 1, arg.length());
+        if (second.indexOf(' ') >= 0) {
+            throw new IllegalArgumentException("too many dates");
+        }
+        LocalDate from = parseDate(arg.substring(0, space));
+        LocalDate to = parseDate(second);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("range ends before it starts");
+        }
+        return new DueArgs(from, to);
+    }
+
+    /**
+     * Parses the argument of a list command into the subset to show.
+     * Singular and plural forms are accepted, in any case.
+     *
+     * @param argument the argument after the "list" keyword, e.g. {@code done}
+     * @return the matching filter
+     * @throws IllegalArgumentException if the argument names no subset
+     */
+    public TaskList.Filter parseListFilter(String argument) {
+        switch (argument.trim().toLowerCase()) {
+        case "done":
+            return TaskList.Filter.DONE;
+        case "pending":
+        case "undone":
+            return TaskList.Filter.PENDING;
+        case "todo":
+        case "todos":
+            return TaskList.Filter.TODOS;
+        case "deadline":
+        case "deadlines":
+            return TaskList.Filter.DEADLINES;
+        case "event":
+        case "events":
+            return TaskList.Filter.EVENTS;
+        default:
+            throw new IllegalArgumentException("unknown list filter: " + argument);
+        }
+    }
+
+    /**
+     * Parses the argument of a list command: an optional subset, an optional
+     * order and an optional page choice.
+     * <p>
+     * Expected format: {@code [<filter>] [by <order>] [page <n> | all]} or {@code next}.
+     *
+     * @param argument the argument after the "list" keyword, e.g. {@code pending by date page 2}
+     * @return the parsed subset, order and page choice
+     * @throws IllegalArgumentException if the subset, order or page choice is not recognized
+     */
+    public ListArgs parseListArgs(String argument) {
+        String trimmed = argument.trim();
+        String[] words = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+        int i = 0;
+        TaskList.Filter filter = null;
+        if (i < words.length && !isPagingWord(words[i]) && !words[i].equalsIgnoreCase("by")) {
+            filter = parseListFilter(words[i++]);
+        }
+        TaskList.Order order = null;
+        if (i + 1 < words.length && words[i].equalsIgnoreCase("by")) {
+            order = parseListOrder(words[i + 1]);
+            i += 2;
+        }
+        if (i == words.length) {
+            return new ListArgs(filter, order, 1, false, false);
+        }
+        String word = words[i].toLowerCase();
+        if (word.equals("next") && words.length == 1) {
+            return new ListArgs(null, null, 0, true, false);
+        }
+        if (word.equals("all") && i + 1 == words.length) {
+            return new ListArgs(filter, order, 1, false, true);
+        }
+        if (word.equals("page") && i + 2 == words.length) {
+            int page = Integer.parseInt(words[i + 1]);
+            if (page < 1) {
+                throw new IllegalArgumentException("page must be positive");
+            }
+            return new ListArgs(filter, order, page, false, false);
+        }
+        throw new IllegalArgumentException("unknown list option: " + argument);
+    }
+
+    /**
+     * Parses the order named after {@code by} in a list command.
+     *
+     * @param word the order's name, e.g. {@code date}
+     * @return the matching order
+     * @throws IllegalArgumentException if the word names no order
+     */
+    public TaskList.Order parseListOrder(String word) {
+        switch (word.trim().toLowerCase()) {
+        case "date":
+        case "due":
+        case "deadline":
+            return TaskList.Order.DATE;
+        case "status":
+        case "done":
+            return TaskList.Order.STATUS;
+        case "type":
+        case "kind":
+            return TaskList.Order.TYPE;
+        default:
+            throw new IllegalArgumentException("unknown list order: " + word);
+        }
+    }
+
+    private static boolean isPagingWord(String word) {
+        switch (word.toLowerCase()) {
+        case "page":
+        case "next":
+        case "all":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Parses the argument of an on command, a single date.
+     *
+     * @param argument the full argument string after the "on" keyword
+     * @return the date
+     * @throws java.time.format.DateTimeParseException if the date cannot be parsed
+     */
+    public LocalDate parseOnArgs(String argument) {
+        return parseDate(argument.trim());
+    }
+
+    /**
+     * Returns the index of the next {@code /from} or {@code /to} at or after
+     * {@code from}, or {@code -1} if there is none.
+     */
+    private static int nextMarker(String s, int from) {
+        for (int i = s.indexOf('/', from); i >= 0; i = s.indexOf('/', i + 1)) {
+            if (s.startsWith(FROM, i) || s.startsWith(TO, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int markerLength(String s, int at) {
+        return s.startsWith(FROM, at) ? FROM.length() : TO.length();
+    }
+
+    /**
+     * Returns {@code s[from, to)} with surrounding whitespace removed,
+     * allocating only the resulting string.
+     */
+    private static String slice(String s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return s.substring(from, to);
     }
 
     /**
@@ -138,19 +343,54 @@ public class Parser {
         return idx;
     }
 
+    /**
+     * Parses a list of 1-based task numbers and ranges, such as
+     * {@code 4,9,12-20}, into distinct 0-based indices.
+     * <p>
+     * Items are separated by commas (spaces around them are ignored); a
+     * range {@code a-b} includes both ends. A single number behaves exactly
+     * like {@link #parseIndex(String, int)}.
+     *
+     * @param argument       the numbers as entered by the user
+     * @param upperExclusive the exclusive upper bound of valid indices
+     * @return the 0-based indices in ascending order, without duplicates
+     * @throws NumberFormatException     if an item is not a number or range
+     * @throws IndexOutOfBoundsException if any index is out of range or a range is reversed
+     */
+    public int[] parseIndices(String argument, int upperExclusive) {
+        BitSet chosen = new BitSet(upperExclusive);
+        int n = argument.length();
+        int start = 0;
+        while (start <= n) {
+            int comma = argument.indexOf(',', start);
+            int end = comma < 0 ? n : comma;
+            String item = slice(argument, start, end);
+            int dash = item.indexOf('-', 1);
+            if (dash < 0) {
+                chosen.set(parseIndex(item, upperExclusive));
+            } else {
+                int lo = parseIndex(slice(item, 0, dash), upperExclusive);
+                int hi = parseIndex(slice(item, dash + 1, item.length()), upperExclusive);
+                if (hi < lo) {
+                    throw new IndexOutOfBoundsException();
+                }
+                chosen.set(lo, hi + 1);
+            }
+            start = end + 1;
+        }
+        return chosen.stream().toArray();
+    }
+
     /**
      * Attempts to parse a date string in ISO or slash format.
      *
      * @param s the string to parse
      * @return the parsed {@link LocalDate}
      * @throws java.time.format.DateTimeParseException if parsing fails for both formats
+     * @see DateParser#parse(String)
      */
     private LocalDate parseDate(String s) {
-        try {
-            return LocalDate.parse(s, IN_ISO);
-        } catch (DateTimeParseException ignored) {
-            return LocalDate.parse(s, IN_SLASH);
-        }
+        return DateParser.parse(s);
     }
 
     /**
@@ -186,11 +426,57 @@ public class Parser {
      */
     public static class EventArgs {
         public final String desc, from, to;
+        /** Parsed times, or {@code null} when the text is not a date. */
+        public final LocalDateTime start, end;
 
         public EventArgs(String d, String f, String t) {
+            this(d, f, t, null, null);
+        }
+
+        public EventArgs(String d, String f, String t, LocalDateTime s, LocalDateTime e) {
             this.desc = d;
             this.from = f;
             this.to = t;
+            this.start = s;
+            this.end = e;
+        }
+    }
+
+    /**
+     * Encapsulates the parsed arguments for a list command.
+     */
+    public static class ListArgs {
+        /** Subset to show, or {@code null} for every task. */
+        public final TaskList.Filter filter;
+        /** Order to show it in, or {@code null} for list order. */
+        public final TaskList.Order order;
+        /** One-based page to show; unused for {@code next} and {@code all}. */
+        public final int page;
+        /** Whether to show the page after the one shown last. */
+        public final boolean next;
+        /** Whether to show every matching task at once. */
+        public final boolean all;
+
+        public ListArgs(TaskList.Filter filter, TaskList.Order order, int page, boolean next, boolean all) {
+            this.filter = filter;
+            this.order = order;
+            this.page = page;
+            this.next = next;
+            this.all = all;
+        }
+    }
+
+    /**
+     * Encapsulates the parsed arguments for a due command.
+     */
+    public static class DueArgs {
+        /** First due date to include, or {@code null} for no lower bound. */
+        public final LocalDate from;
+        public final LocalDate to;
+
+        public DueArgs(LocalDate f, LocalDate t) {
+            this.from = f;
+            this.to = t;
         }
     }
 }
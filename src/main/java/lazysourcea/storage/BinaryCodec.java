@@ -0,0 +1,419 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.Deadline;
+import lazysourcea.task.Event;
+import lazysourcea.task.OffHeapTaskList;
+import lazysourcea.task.Task;
+import lazysourcea.task.Todo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary snapshot format for task lists.
+ * <p>
+ * Layout (all integers big-endian):
+ * <pre>
+ *   header : 'L' 'Z' 'S' 'B' | version (u16) | task count (i32)
+ *   record : type (u8: 'T', 'D' or 'E') | flags (u8, bit 0 = done)
+ *            | description (i32 byte length + UTF-8 bytes)
+ *            | 'D' only: due date as epoch day (i32)
+ *            | 'E' only: from, to (each i32 byte length + UTF-8 bytes)
+ *   index  : (version 2) segment size (i32) | segment count (i32)
+ *            | file offset of each segment's first record (i64 each)
+ *   trailer: (version 2) file offset of the index (i64)
+ * </pre>
+ * Strings are length-prefixed, so descriptions may contain {@code '|'} or
+ * any other character without escaping. The segment index lets
+ * {@link MappedTaskList} locate any record without scanning the file;
+ * version 1 files have no index and are scanned once instead.
+ */
+class BinaryCodec {
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 10;
+    static final int SEGMENT_SIZE = 1024;
+
+    private static final byte[] MAGIC = {'L', 'Z', 'S', 'B'};
+    private static final int FLAG_DONE = 1;
+    private static final int STRING_CHUNK = 1 << 16;
+
+    /**
+     * Returns whether {@code head} starts with the binary snapshot magic.
+     *
+     * @param head the first bytes of a file
+     * @param len  how many bytes of {@code head} are valid
+     * @return {@code true} if the bytes identify a binary snapshot
+     */
+    static boolean hasMagic(byte[] head, int len) {
+        if (len < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a complete snapshot of {@code tasks}.
+     *
+     * @param os    destination stream; not closed
+     * @param tasks tasks to write, in list order
+     * @throws IOException if writing fails
+     */
+    static void write(OutputStream os, List<Task> tasks) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(os, 1 << 16));
+        DataOutputStream out = new DataOutputStream(counter);
+        out.write(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(tasks.size());
+        long[] segments = new long[(tasks.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE];
+        int i = 0;
+        for (Task t : tasks) {
+            if (i % SEGMENT_SIZE == 0) {
+                segments[i / SEGMENT_SIZE] = counter.count;
+            }
+            writeTask(out, t);
+            i++;
+        }
+        long indexOffset = counter.count;
+        out.writeInt(SEGMENT_SIZE);
+        out.writeInt(segments.length);
+        for (long offset : segments) {
+            out.writeLong(offset);
+        }
+        out.writeLong(indexOffset);
+        out.flush();
+    }
+
+    /**
+     * Writes a complete snapshot of an off-heap list straight from its arena.
+     * <p>
+     * The list's records are already in this format, so they are handed to
+     * the channel as direct buffers in batches, without being decoded into
+     * tasks or copied onto the heap.
+     *
+     * @param ch    destination channel, positioned at the start of the file; not closed
+     * @param tasks tasks to write, in list order
+     * @throws IOException if writing fails
+     */
+    static void write(FileChannel ch, OffHeapTaskList tasks) throws IOException {
+        int count = tasks.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.put(MAGIC).putShort((short) VERSION).putInt(count).flip();
+        ByteBuffer[] batch = new ByteBuffer[256];
+        batch[0] = header;
+        int n = 1;
+        long pos = HEADER_BYTES;
+        long[] segments = new long[(count + SEGMENT_SIZE - 1) / SEGMENT_SIZE];
+        for (int i = 0; i < count; i++) {
+            if (i % SEGMENT_SIZE == 0) {
+                segments[i / SEGMENT_SIZE] = pos;
+            }
+            ByteBuffer r = tasks.record(i);
+            pos += r.remaining();
+            batch[n++] = r;
+            if (n == batch.length) {
+                writeFully(ch, batch, n);
+                n = 0;
+            }
+        }
+        ByteBuffer index = ByteBuffer.allocate(2 * Integer.BYTES + (segments.length + 1) * Long.BYTES);
+        index.putInt(SEGMENT_SIZE).putInt(segments.length);
+        for (long offset : segments) {
+            index.putLong(offset);
+        }
+        index.putLong(pos).flip();
+        batch[n++] = index;
+        writeFully(ch, batch, n);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer[] buffers, int n) throws IOException {
+        int first = 0;
+        while (first < n) {
+            ch.write(buffers, first, n - first);
+            while (first < n && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    /**
+     * Reads a complete snapshot. A truncated or corrupt tail stops the read;
+     * everything decoded up to that point is returned and the problem is added
+     * to {@code errors}.
+     *
+     * @param is     source stream positioned at the magic bytes; not closed
+     * @param errors receives a description of any problem found
+     * @return the decoded tasks
+     * @throws IOException if reading fails for reasons other than corrupt data
+     */
+    static ArrayList<Task> read(InputStream is, List<String> errors) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        read(is, tasks, errors);
+        return tasks;
+    }
+
+    /**
+     * Reads a complete snapshot, adding each task to {@code tasks} as soon as
+     * it is decoded. Errors are handled as by {@link #read(InputStream, List)}.
+     *
+     * @param is     source stream positioned at the magic bytes; not closed
+     * @param tasks  receives the decoded tasks
+     * @param errors receives a description of any problem found
+     * @throws IOException if reading fails for reasons other than corrupt data
+     */
+    static void read(InputStream is, List<Task> tasks, List<String> errors) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        int version = in.readUnsignedShort();
+        if (!hasMagic(magic, magic.length) || version < 1 || version > VERSION) {
+            errors.add("unsupported binary snapshot version " + version);
+            return;
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            try {
+                tasks.add(readTask(in));
+            } catch (EOFException e) {
+                errors.add("binary snapshot truncated at record " + (i + 1) + " of " + count);
+                break;
+            } catch (CorruptRecordException e) {
+                errors.add("binary snapshot record " + (i + 1) + ": " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param out destination
+     * @param t   the task to encode
+     * @throws IOException if writing fails
+     */
+    static void writeTask(DataOutput out, Task t) throws IOException {
+        int flags = t.isDone() ? FLAG_DONE : 0;
+        if (t instanceof Deadline) {
+            out.writeByte('D');
+            out.writeByte(flags);
+            writeString(out, t.getDescription());
+            out.writeInt((int) ((Deadline) t).getBy().toEpochDay());
+        } else if (t instanceof Event) {
+            Event e = (Event) t;
+            out.writeByte('E');
+            out.writeByte(flags);
+            writeString(out, t.getDescription());
+            writeString(out, e.getFrom());
+            writeString(out, e.getTo());
+        } else {
+            out.writeByte('T');
+            out.writeByte(flags);
+            writeString(out, t.getDescription());
+        }
+    }
+
+    /**
+     * Reads a single task record.
+     *
+     * @param in source positioned at the type byte
+     * @return the decoded task
+     * @throws IOException if reading fails or the record is corrupt
+     */
+    static Task readTask(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        String desc = readString(in);
+        Task t;
+        switch (type) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            t = new Deadline(desc, date(in.readInt()));
+            break;
+        case 'E':
+            String from = readString(in);
+            t = new Event(desc, from, readString(in));
+            break;
+        default:
+            throw new CorruptRecordException("unknown task type " + type);
+        }
+        if ((flags & FLAG_DONE) != 0) {
+            t.markDone();
+        }
+        return t;
+    }
+
+    /**
+     * Reads a single task record from a buffer, advancing its position.
+     *
+     * @param in buffer positioned at the type byte
+     * @return the decoded task
+     * @throws CorruptRecordException if the record is corrupt or truncated
+     */
+    static Task readTask(ByteBuffer in) throws CorruptRecordException {
+        try {
+            int type = in.get() & 0xFF;
+            int flags = in.get() & 0xFF;
+            String desc = readString(in);
+            Task t;
+            switch (type) {
+            case 'T':
+                t = new Todo(desc);
+                break;
+            case 'D':
+                t = new Deadline(desc, date(in.getInt()));
+                break;
+            case 'E':
+                String from = readString(in);
+                t = new Event(desc, from, readString(in));
+                break;
+            default:
+                throw new CorruptRecordException("unknown task type " + type);
+            }
+            if ((flags & FLAG_DONE) != 0) {
+                t.markDone();
+            }
+            return t;
+        } catch (BufferUnderflowException e) {
+            throw new CorruptRecordException("record truncated");
+        }
+    }
+
+    /**
+     * Advances {@code in} past one record without decoding it.
+     *
+     * @param in buffer positioned at the type byte
+     * @throws CorruptRecordException if the record is corrupt or truncated
+     */
+    static void skipTask(ByteBuffer in) throws CorruptRecordException {
+        try {
+            int type = in.get() & 0xFF;
+            in.get();
+            skipString(in);
+            if (type == 'D') {
+                in.getInt();
+            } else if (type == 'E') {
+                skipString(in);
+                skipString(in);
+            } else if (type != 'T') {
+                throw new CorruptRecordException("unknown task type " + type);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new CorruptRecordException("record truncated");
+        }
+    }
+
+    private static String readString(ByteBuffer in) throws CorruptRecordException {
+        int len = in.getInt();
+        if (len < 0 || len > in.remaining()) {
+            throw new CorruptRecordException("bad string length");
+        }
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int len = in.getInt();
+        in.position(in.position() + len);
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed string from a stream. A stream cannot tell how
+     * much is left, so the bytes are read in chunks of at most
+     * {@code STRING_CHUNK}: a corrupt length then runs into the end of the
+     * data instead of making room for bytes that are not there.
+     */
+    private static String readString(DataInput in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            throw new CorruptRecordException("negative string length");
+        }
+        byte[] bytes = new byte[Math.min(len, STRING_CHUNK)];
+        int n = 0;
+        try {
+            while (n < len) {
+                if (n == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(len, 2L * n));
+                }
+                int chunk = Math.min(bytes.length - n, STRING_CHUNK);
+                in.readFully(bytes, n, chunk);
+                n += chunk;
+            }
+        } catch (EOFException e) {
+            throw new CorruptRecordException("string length " + len + " runs past the end of the data");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate date(int epochDay) throws CorruptRecordException {
+        try {
+            return LocalDate.ofEpochDay(epochDay);
+        } catch (DateTimeException e) {
+            throw new CorruptRecordException("bad due date " + epochDay);
+        }
+    }
+
+    /**
+     * Counts bytes written so record offsets can be recorded in the index.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Signals a record that decodes to an impossible value.
+     */
+    static class CorruptRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+}
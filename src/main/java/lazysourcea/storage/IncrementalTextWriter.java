@@ -0,0 +1,184 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Writes text snapshots incrementally by remembering what was written last time.
+ * <p>
+ * For every task in the file it caches the encoded line, the file offset of
+ * that line and the task's {@link Task#getVersion() version} when it was
+ * encoded. A later write then:
+ * <ul>
+ *   <li>skips tasks whose version is unchanged,</li>
+ *   <li>patches changed lines of the same length in place (e.g. a flipped
+ *       done flag), and</li>
+ *   <li>rewrites only the tail from the first inserted, removed or resized
+ *       line onward, reusing cached bytes instead of calling
+ *       {@link Task#toDataString()} again.</li>
+ * </ul>
+ * The cache assumes it is the only writer of the file; call {@link #invalidate()}
+ * whenever the file may have been written by anything else.
+ */
+class IncrementalTextWriter {
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Cached encoding of one task as last written.
+     */
+    private static class Record {
+        byte[] bytes;
+        int version;
+        long offset;
+        int generation;
+    }
+
+    private final IdentityHashMap<Task, Record> records = new IdentityHashMap<>();
+    private final ArrayList<Task> order = new ArrayList<>();
+    private final ArrayList<Record> layout = new ArrayList<>();
+    private long end;
+    private int generation;
+    private boolean isValid = false;
+
+    /**
+     * Forgets the cached file layout so the next write is a full rewrite.
+     */
+    void invalidate() {
+        isValid = false;
+        records.clear();
+        order.clear();
+        layout.clear();
+    }
+
+    /**
+     * Brings {@code path} in line with {@code tasks}, touching as little of
+     * the file as possible.
+     *
+     * @param path  the text snapshot
+     * @param tasks the tasks that the file should contain, in order
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path path, List<Task> tasks) throws IOException {
+        if (!isValid || Files.notExists(path) || Files.size(path) != end) {
+            rewrite(path, tasks);
+            return;
+        }
+        generation++;
+        int n = tasks.size();
+        int m = order.size();
+        int tail = Math.min(n, m);
+        for (int i = 0; i < tail; i++) {
+            if (tasks.get(i) != order.get(i)) {
+                tail = i;
+                break;
+            }
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < tail; i++) {
+                Task t = order.get(i);
+                Record r = layout.get(i);
+                r.generation = generation;
+                if (t.getVersion() == r.version) {
+                    continue;
+                }
+                byte[] bytes = encode(t);
+                if (bytes.length != r.bytes.length) {
+                    tail = i;
+                    break;
+                }
+                ch.write(ByteBuffer.wrap(bytes), r.offset);
+                r.bytes = bytes;
+                r.version = t.getVersion();
+            }
+            if (tail == n && tail == m) {
+                return;
+            }
+            long pos = tail < m ? layout.get(tail).offset : end;
+            ch.truncate(pos);
+            ch.position(pos);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16);
+            for (int i = tail; i < n; i++) {
+                Task t = tasks.get(i);
+                Record r = cache(t);
+                r.offset = pos;
+                out.write(r.bytes);
+                pos += r.bytes.length;
+            }
+            out.flush();
+            end = pos;
+        }
+        for (int i = tail; i < m; i++) {
+            if (layout.get(i).generation != generation) {
+                records.remove(order.get(i));
+            }
+        }
+        order.subList(tail, m).clear();
+        layout.subList(tail, m).clear();
+        for (int i = tail; i < n; i++) {
+            Task t = tasks.get(i);
+            order.add(t);
+            layout.add(records.get(t));
+        }
+    }
+
+    private void rewrite(Path path, List<Task> tasks) throws IOException {
+        invalidate();
+        generation++;
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long pos = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), 1 << 16)) {
+            for (Task t : tasks) {
+                Record r = cache(t);
+                r.offset = pos;
+                out.write(r.bytes);
+                pos += r.bytes.length;
+                order.add(t);
+                layout.add(r);
+            }
+        }
+        Storage.replace(tmp, path);
+        end = pos;
+        isValid = true;
+    }
+
+    /**
+     * Returns the cached record for {@code t}, encoding it if it is new or
+     * has changed since it was cached, and stamps it as still in use.
+     */
+    private Record cache(Task t) {
+        Record r = records.get(t);
+        if (r == null) {
+            r = new Record();
+            r.version = t.getVersion() - 1;
+            records.put(t, r);
+        }
+        if (r.version != t.getVersion()) {
+            r.bytes = encode(t);
+            r.version = t.getVersion();
+        }
+        r.generation = generation;
+        return r;
+    }
+
+    private static byte[] encode(Task t) {
+        byte[] data = t.toDataString().getBytes(StandardCharsets.UTF_8);
+        byte[] line = new byte[data.length + NEWLINE.length];
+        System.arraycopy(data, 0, line, 0, data.length);
+        System.arraycopy(NEWLINE, 0, line, data.length, NEWLINE.length);
+        return line;
+    }
+}
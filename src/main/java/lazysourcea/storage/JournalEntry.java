@@ -0,0 +1,120 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.Task;
+
+/**
+ * A single mutation record in the append-only journal kept next to the
+ * snapshot file.
+ * <p>
+ * Each entry is written as one line:
+ * <ul>
+ *   <li>{@code A | <task data string>} — a task was appended</li>
+ *   <li>{@code M | <index>} — the task at {@code index} was marked done</li>
+ *   <li>{@code U | <index>} — the task at {@code index} was marked not done</li>
+ *   <li>{@code D | <index>} — the task at {@code index} was deleted</li>
+ *   <li>{@code I | <index> | <task data string>} — a task was inserted at
+ *       {@code index}, e.g. when a delete was undone</li>
+ * </ul>
+ * Indices are zero-based and refer to the list as it was when the entry
+ * was recorded, so entries must be replayed in order.
+ */
+public class JournalEntry {
+
+    /**
+     * Kinds of mutation that can be journaled.
+     */
+    public enum Op {
+        ADD('A'), MARK('M'), UNMARK('U'), DELETE('D'), INSERT('I');
+
+        private final char code;
+
+        Op(char code) {
+            this.code = code;
+        }
+
+        static Op fromCode(char c) {
+            for (Op op : values()) {
+                if (op.code == c) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    public final Op op;
+    public final int index;
+    public final Task task;
+
+    private JournalEntry(Op op, int index, Task task) {
+        this.op = op;
+        this.index = index;
+        this.task = task;
+    }
+
+    /**
+     * Creates an entry recording that {@code task} was appended to the list.
+     *
+     * @param task the task that was added
+     * @return the journal entry
+     */
+    public static JournalEntry add(Task task) {
+        return new JournalEntry(Op.ADD, -1, task);
+    }
+
+    /**
+     * Creates an entry recording that {@code task} was inserted at {@code index}.
+     *
+     * @param index zero-based index the task now has
+     * @param task  the task that was inserted
+     * @return the journal entry
+     */
+    public static JournalEntry insert(int index, Task task) {
+        return new JournalEntry(Op.INSERT, index, task);
+    }
+
+    /**
+     * Creates an entry recording that the task at {@code index} was marked done.
+     *
+     * @param index zero-based index of the marked task
+     * @return the journal entry
+     */
+    public static JournalEntry mark(int index) {
+        return new JournalEntry(Op.MARK, index, null);
+    }
+
+    /**
+     * Creates an entry recording that the task at {@code index} was unmarked.
+     *
+     * @param index zero-based index of the unmarked task
+     * @return the journal entry
+     */
+    public static JournalEntry unmark(int index) {
+        return new JournalEntry(Op.UNMARK, index, null);
+    }
+
+    /**
+     * Creates an entry recording that the task at {@code index} was deleted.
+     *
+     * @param index zero-based index of the deleted task
+     * @return the journal entry
+     */
+    public static JournalEntry delete(int index) {
+        return new JournalEntry(Op.DELETE, index, null);
+    }
+
+    /**
+     * Returns the line written to the journal file for this entry.
+     *
+     * @return the serialized journal line
+     */
+    public String toJournalLine() {
+        if (op == Op.ADD) {
+            return op.code + " | " + task.toDataString();
+        }
+        if (op == Op.INSERT) {
+            return op.code + " | " + index + " | " + task.toDataString();
+        }
+        return op.code + " | " + index;
+    }
+}
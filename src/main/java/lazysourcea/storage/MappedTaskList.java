@@ -0,0 +1,290 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.Task;
+import lazysourcea.task.Todo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A task list backed by a memory-mapped binary snapshot.
+ * <p>
+ * The file is divided into segments of {@link BinaryCodec#SEGMENT_SIZE}
+ * records whose offsets come from the snapshot's segment index. A segment is
+ * mapped with {@link FileChannel#map} and decoded into {@link Task} objects
+ * only when one of its tasks is first accessed, so opening the list costs
+ * time and heap proportional to the number of segments, not tasks.
+ * <p>
+ * The list is fully mutable. Additions go to an in-memory tail segment;
+ * removals and replacements decode only the segment they touch. The mapped
+ * file itself is never modified.
+ * <p>
+ * Records that turn out to be unreadable when their segment is decoded are
+ * replaced by placeholder todos and reported through {@link #errors()}.
+ * Since that only happens on first access, {@link Storage} checks
+ * {@link #errors()} before it writes over the file.
+ */
+class MappedTaskList extends AbstractList<Task> implements Closeable {
+    private static final String UNREADABLE = "(unreadable task)";
+
+    private final FileChannel channel;
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private int[] firstIndex;
+    private int size;
+
+    /**
+     * A run of consecutive tasks: either still on disk ({@code tasks == null})
+     * or decoded into memory.
+     */
+    private static class Segment {
+        final long start;
+        final long end;
+        final int count;
+        ArrayList<Task> tasks;
+
+        Segment(long start, long end, int count) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+        }
+
+        int size() {
+            return tasks == null ? count : tasks.size();
+        }
+    }
+
+    private MappedTaskList(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a binary snapshot without decoding any tasks.
+     *
+     * @param path a file written by {@link BinaryCodec#write}
+     * @return the lazily loaded list
+     * @throws IOException if the file cannot be read or is not a binary snapshot
+     */
+    static MappedTaskList open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedTaskList list = new MappedTaskList(ch);
+            list.readIndex();
+            return list;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private void readIndex() throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = read(0, BinaryCodec.HEADER_BYTES);
+        byte[] magic = new byte[4];
+        header.get(magic);
+        int version = header.getShort() & 0xFFFF;
+        int count = header.getInt();
+        if (!BinaryCodec.hasMagic(magic, magic.length) || count < 0) {
+            throw new IOException("not a binary snapshot");
+        }
+        if (version >= 2) {
+            long indexOffset = read(fileSize - Long.BYTES, Long.BYTES).getLong();
+            ByteBuffer head = read(indexOffset, 2 * Integer.BYTES);
+            int segmentSize = head.getInt();
+            int segmentCount = head.getInt();
+            if (segmentCount < 0 || segmentSize <= 0 || (long) segmentCount * segmentSize < count) {
+                throw new IOException("segment index does not cover every task");
+            }
+            ByteBuffer offsets = read(indexOffset + 2 * Integer.BYTES, (long) segmentCount * Long.BYTES);
+            // A snapshot of an empty list has no segments and no offsets.
+            long start = segmentCount == 0 ? indexOffset : offsets.getLong();
+            for (int k = 0; k < segmentCount; k++) {
+                long end = k + 1 < segmentCount ? offsets.getLong() : indexOffset;
+                segments.add(new Segment(start, end, Math.min(segmentSize, count - k * segmentSize)));
+                start = end;
+            }
+        } else {
+            scanSegments(count, fileSize);
+        }
+        size = count;
+    }
+
+    /**
+     * Builds the segment index of a version 1 snapshot by skipping over every
+     * record once without decoding it.
+     */
+    private void scanSegments(int count, long fileSize) throws IOException {
+        ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        buf.position(BinaryCodec.HEADER_BYTES);
+        for (int i = 0; i < count; i += BinaryCodec.SEGMENT_SIZE) {
+            int n = Math.min(BinaryCodec.SEGMENT_SIZE, count - i);
+            long start = buf.position();
+            for (int j = 0; j < n; j++) {
+                BinaryCodec.skipTask(buf);
+            }
+            segments.add(new Segment(start, buf.position(), n));
+        }
+    }
+
+    private ByteBuffer read(long position, long length) throws IOException {
+        if (position < 0 || length > Integer.MAX_VALUE || position + length > channel.size()) {
+            throw new IOException("segment index out of range");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Returns problems met while decoding segments so far. Undecodable
+     * records are replaced by placeholder todos so that numbering is kept.
+     *
+     * @return an unmodifiable list of error descriptions
+     */
+    List<String> errors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns how many segments have been decoded into memory.
+     *
+     * @return the number of materialized segments
+     */
+    int loadedSegments() {
+        int n = 0;
+        for (Segment s : segments) {
+            if (s.tasks != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        int k = locate(index);
+        return load(segments.get(k)).get(index - firstIndex[k]);
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        int k = locate(index);
+        return load(segments.get(k)).set(index - firstIndex[k], task);
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index == size) {
+            Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last == null || last.tasks == null || last.tasks.size() >= BinaryCodec.SEGMENT_SIZE) {
+                last = new Segment(0, 0, 0);
+                last.tasks = new ArrayList<>();
+                segments.add(last);
+            }
+            last.tasks.add(task);
+        } else {
+            int k = locate(index);
+            load(segments.get(k)).add(index - firstIndex[k], task);
+        }
+        size++;
+        firstIndex = null;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        int k = locate(index);
+        Segment s = segments.get(k);
+        Task removed = load(s).remove(index - firstIndex[k]);
+        if (s.tasks.isEmpty()) {
+            segments.remove(k);
+        }
+        size--;
+        firstIndex = null;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns the segment holding {@code index}, rebuilding the table of
+     * first indices if the segment sizes changed since the last lookup.
+     */
+    private int locate(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int[] first = firstIndex;
+        if (first == null) {
+            // Filled before it is published, so a concurrent reader never
+            // sees a half-built table.
+            first = new int[segments.size()];
+            int n = 0;
+            for (int k = 0; k < segments.size(); k++) {
+                first[k] = n;
+                n += segments.get(k).size();
+            }
+            firstIndex = first;
+        }
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (first[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private ArrayList<Task> load(Segment s) {
+        if (s.tasks != null) {
+            return s.tasks;
+        }
+        ArrayList<Task> tasks = new ArrayList<>(s.count);
+        try {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, s.start, s.end - s.start);
+            for (int i = 0; i < s.count; i++) {
+                tasks.add(BinaryCodec.readTask(buf));
+            }
+        } catch (BinaryCodec.CorruptRecordException e) {
+            errors.add("binary snapshot segment at byte " + s.start + ": " + e.getMessage()
+                    + "; its tasks from there on show as " + UNREADABLE + " and the file will not be overwritten");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        while (tasks.size() < s.count) {
+            tasks.add(new Todo(UNREADABLE));
+        }
+        s.tasks = tasks;
+        return tasks;
+    }
+}
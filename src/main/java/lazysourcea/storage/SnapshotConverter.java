@@ -0,0 +1,63 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts snapshot files between the text and binary {@link Storage.Format}s.
+ * <p>
+ * Usage: {@code java lazysourcea.storage.SnapshotConverter <in> <out> text|binary}.
+ * The input format is detected automatically. Only the snapshot itself is
+ * converted; replay any pending journal first by loading and saving it
+ * through {@link Storage}.
+ */
+public class SnapshotConverter {
+
+    /**
+     * Reads {@code source} in whatever format it is in and writes it to
+     * {@code target} in {@code format}.
+     *
+     * @param source the snapshot to read
+     * @param target the snapshot to write; replaced if it exists
+     * @param format the format to write
+     * @param errors receives a description of every record that could not be read
+     * @return the number of tasks written
+     * @throws IOException if either file cannot be accessed
+     */
+    public static int convert(Path source, Path target, Storage.Format format, List<String> errors)
+            throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        Storage.readSnapshot(source, tasks, errors);
+        Storage.writeSnapshot(target, tasks, format);
+        return tasks.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("usage: SnapshotConverter <in> <out> text|binary");
+            System.exit(2);
+        }
+        Storage.Format format;
+        try {
+            format = Storage.Format.valueOf(args[2].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("unknown format: " + args[2]);
+            System.exit(2);
+            return;
+        }
+        List<String> errors = new ArrayList<>();
+        try {
+            int n = convert(Paths.get(args[0]), Paths.get(args[1]), format, errors);
+            errors.forEach(System.err::println);
+            System.out.println("converted " + n + " task(s) to " + format.name().toLowerCase());
+        } catch (IOException e) {
+            System.err.println("conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -1,29 +1,96 @@
 package lazysourcea.storage;
 
-import lazysourcea.task.Deadline;
-import lazysourcea.task.Event;
+import lazysourcea.task.ChunkedTaskList;
+import lazysourcea.task.OffHeapTaskList;
 import lazysourcea.task.Task;
-import lazysourcea.task.Todo;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles saving and loading tasks from a file.
  * <p>
  * The {@code Storage} class ensures that tasks are persisted
  * between runs of the chatbot by reading and writing them
- * in a plain text format.
+ * in a plain text format, or optionally in a compact binary format
+ * (see {@link Format}) that is detected automatically on load.
+ * <p>
+ * Individual mutations are appended to a journal file next to the
+ * snapshot (e.g. {@code duke.txt.journal}) instead of rewriting the
+ * whole snapshot each time. {@link #load()} replays the journal over
+ * the snapshot, and once the journal grows past a threshold it is
+ * folded back into a fresh snapshot by {@link #save(List)}.
+ * <p>
+ * By default every journal entry is written before {@link #append(JournalEntry, List)}
+ * returns. After {@link #enableWriteBehind(long, int)}, entries are buffered
+ * and a background flusher writes them as one group commit per durability
+ * window (or as soon as a batch fills up). One daemon thread does this for
+ * every storage in the process, so opening many storages does not start
+ * many threads. Callers must {@link #flush()} or {@link #close()} before
+ * exiting to avoid losing the buffered tail.
  */
 public class Storage {
+    /**
+     * On-disk encodings of the snapshot file.
+     */
+    public enum Format {
+        /** One {@code T | 1 | desc | ...} line per task, as written by {@link Task#toDataString()}. */
+        TEXT,
+        /** The length-prefixed binary layout described in {@link BinaryCodec}. */
+        BINARY
+    }
+
+    // Shared by every storage in write-behind mode; its thread is only
+    // started once the first flush is scheduled.
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread th = new Thread(r, "storage-flusher");
+        th.setDaemon(true);
+        return th;
+    });
+
+    /** Default number of journal entries tolerated before compaction. */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 1000;
+
     private final Path file;
+    private final Path journal;
+    private int compactThreshold = DEFAULT_COMPACT_THRESHOLD;
+    private int journalEntries = 0;
+    private Format format = Format.TEXT;
+    private MappedTaskList mapped;
+    private OffHeapTaskList offHeap;
+    private final IncrementalTextWriter textWriter = new IncrementalTextWriter();
+    private final List<String> loadErrors = new ArrayList<>();
+
+    private final Object ioLock = new Object();
+    private final List<String> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+    private int maxBatch = 1;
+    // Why the last journal append failed, until reported or a later one works.
+    private IOException writeError;
+    private int batchDepth = 0;
 
     /**
      * Creates a new {@code Storage} instance using the given path.
@@ -34,79 +101,621 @@ public class Storage {
      */
     public Storage(String... pathParts) {
         this.file = Paths.get("", pathParts);
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+    }
+
+    /**
+     * Sets how many journal entries may accumulate before {@link #append(JournalEntry, List)}
+     * compacts them into a fresh snapshot.
+     *
+     * @param threshold maximum journal length, at least 1
+     */
+    public void setCompactThreshold(int threshold) {
+        assert threshold >= 1 : "threshold must be positive";
+        this.compactThreshold = threshold;
+    }
+
+    /**
+     * Sets the format used by subsequent snapshot writes. {@link #load()}
+     * resets this to the format of the file it found.
+     *
+     * @param format the snapshot format to write
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+        textWriter.invalidate();
+    }
+
+    /**
+     * Returns the format used for snapshot writes.
+     *
+     * @return the current snapshot format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Switches this storage to write-behind mode.
+     * <p>
+     * Journal entries are then buffered in memory and written by a background
+     * thread at most {@code windowMillis} after they were recorded, or
+     * immediately once {@code maxBatch} entries are pending. At most
+     * {@code windowMillis} of mutations can be lost on a crash.
+     *
+     * @param windowMillis the durability window in milliseconds, at least 1
+     * @param maxBatch     number of pending entries that triggers an early flush
+     */
+    public synchronized void enableWriteBehind(long windowMillis, int maxBatch) {
+        assert windowMillis >= 1 : "window must be positive";
+        assert maxBatch >= 1 : "batch must be positive";
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        this.maxBatch = maxBatch;
+        this.flushTask = FLUSHER.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns whether journal entries are written asynchronously.
+     *
+     * @return {@code true} in write-behind mode
+     */
+    public synchronized boolean isWriteBehind() {
+        return flushTask != null;
+    }
+
+    /**
+     * Starts a batch: journal entries are held in memory until the matching
+     * {@link #endBatch()} (or an explicit {@link #flush()}), whatever the
+     * write mode. Batches may nest; only the outermost one commits.
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginBatch()} and, for the outermost
+     * batch, writes everything recorded during it as one group commit.
+     */
+    public void endBatch() {
+        synchronized (this) {
+            assert batchDepth > 0 : "endBatch without beginBatch";
+            batchDepth--;
+            if (batchDepth > 0) {
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes all buffered journal entries to disk in a single append.
+     * <p>
+     * Does nothing if nothing is pending. Safe to call from any thread. If
+     * the append fails, the journal is cut back to where it was and the
+     * entries stay buffered, ahead of any recorded since, to be written by
+     * the next flush; {@link #takeWriteError()} tells why.
+     */
+    public void flush() {
+        synchronized (ioLock) {
+            List<String> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            long before = -1;
+            try {
+                createParentDirectories();
+                before = Files.exists(journal) ? Files.size(journal) : 0;
+                Files.write(journal, batch, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                synchronized (this) {
+                    writeError = null;
+                }
+            } catch (IOException e) {
+                truncateJournal(before);
+                synchronized (this) {
+                    pending.addAll(0, batch);
+                    writeError = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops whatever part of a failed append reached the journal, so that
+     * writing the batch again does not record it twice.
+     */
+    private void truncateJournal(long size) {
+        if (size < 0) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            ch.truncate(size);
+        } catch (IOException ignored) {
+            // Nothing more can be done; the entries are still buffered.
+        }
+    }
+
+    /**
+     * Returns why buffered journal entries could not be written and forgets
+     * it, or returns {@code null} if nothing failed since the last call or
+     * the entries have been written since. Entries that failed to be written
+     * stay buffered until a flush succeeds.
+     *
+     * @return a description of the failure, or {@code null}
+     */
+    public synchronized String takeWriteError() {
+        IOException e = writeError;
+        writeError = null;
+        return e == null ? null : "could not write " + journal.getFileName() + ": " + e.getMessage();
+    }
+
+    /**
+     * Flushes pending entries and stops flushing in the background, if this
+     * storage did. The storage falls back to synchronous writes afterwards.
+     * A list returned by {@link #loadLazily()} must not be used after closing.
+     *
+     * @throws UncheckedIOException if buffered entries could not be written;
+     *                              they are still buffered, so closing again
+     *                              tries once more
+     */
+    public void close() {
+        ScheduledFuture<?> f;
+        synchronized (this) {
+            f = flushTask;
+            flushTask = null;
+        }
+        if (f != null) {
+            f.cancel(false);
+        }
+        flush();
+        IOException failed;
+        int unwritten;
+        synchronized (this) {
+            failed = writeError;
+            unwritten = pending.size();
+            writeError = null;
+        }
+        if (failed != null && unwritten > 0) {
+            throw new UncheckedIOException("could not write " + unwritten + " journal entries to "
+                    + journal.getFileName(), failed);
+        }
+        closeMapped();
+        closeOffHeap();
+    }
+
+    /**
+     * Returns the number of entries currently in the journal.
+     *
+     * @return the journal length
+     */
+    public int journalSize() {
+        return journalEntries;
     }
 
     /**
      * Loads tasks from the save file.
      * <p>
-     * If the file does not exist, an empty list is returned.
+     * If the file does not exist, an empty list is returned. Any journaled
+     * mutations are replayed on top of the snapshot in the order they were
+     * recorded. The file is streamed rather than read into memory at once,
+     * and lines that cannot be decoded are skipped and reported through
+     * {@link #getLoadErrors()}.
      *
      * @return a list of {@link Task} objects loaded from the file
      */
-    public ArrayList<Task> load() {
-        ArrayList<Task> tasks = new ArrayList<>();
+    public List<Task> load() {
+        List<Task> tasks = new ChunkedTaskList();
+        loadErrors.clear();
+        textWriter.invalidate();
+        closeOffHeap();
+        try {
+            if (Files.exists(file)) {
+                format = readSnapshot(file, tasks, loadErrors);
+            }
+            replayJournal(tasks);
+        } catch (IOException e) {
+            loadErrors.add("could not read " + file.getFileName() + ": " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Loads tasks without decoding them up front, if possible.
+     * <p>
+     * A binary snapshot is memory-mapped and tasks are materialized segment
+     * by segment as they are first accessed, so startup cost does not grow
+     * with the number of tasks. Text snapshots fall back to {@link #load()}.
+     * Journaled mutations are replayed either way, which decodes only the
+     * segments they touch.
+     *
+     * @return a mutable list of the stored tasks
+     */
+    public List<Task> loadLazily() {
+        loadErrors.clear();
         try {
-            if (Files.notExists(file)) {
-                return tasks;
+            if (!isBinarySnapshot(file)) {
+                return load();
             }
-            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
-            for (String raw : lines) {
+            closeMapped();
+            closeOffHeap();
+            mapped = MappedTaskList.open(file);
+            format = Format.BINARY;
+            replayJournal(mapped);
+            return mapped;
+        } catch (IOException | RuntimeException e) {
+            // A snapshot the mapped reader cannot make sense of is still
+            // worth a full load, which reports what it cannot decode.
+            closeMapped();
+            return load();
+        }
+    }
+
+    /**
+     * Loads tasks into a list whose records are kept off the Java heap.
+     * <p>
+     * Tasks are decoded one at a time and moved into an {@link OffHeapTaskList}
+     * arena, so the heap never holds the whole list. Snapshot writes switch
+     * to the binary format, whose records the arena already stores; as long
+     * as the list returned here is the one passed to {@link #save(List)},
+     * saving copies those records straight from the arena to the file.
+     *
+     * @return a mutable list of the stored tasks; not usable after {@link #close()}
+     */
+    public List<Task> loadOffHeap() {
+        loadErrors.clear();
+        textWriter.invalidate();
+        closeMapped();
+        closeOffHeap();
+        OffHeapTaskList tasks = new OffHeapTaskList();
+        try {
+            if (Files.exists(file)) {
+                readSnapshot(file, tasks, loadErrors);
+            }
+            replayJournal(tasks);
+        } catch (IOException e) {
+            loadErrors.add("could not read " + file.getFileName() + ": " + e.getMessage());
+        }
+        format = Format.BINARY;
+        offHeap = tasks;
+        return tasks;
+    }
+
+    private void replayJournal(List<Task> tasks) throws IOException {
+        journalEntries = 0;
+        if (Files.notExists(journal)) {
+            return;
+        }
+        try (BufferedReader r = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            TaskDecoder decoder = new TaskDecoder(null);
+            int lineNumber = 0;
+            String raw;
+            while ((raw = r.readLine()) != null) {
+                lineNumber++;
                 String line = raw.trim();
                 if (line.isEmpty()) {
                     continue;
                 }
-                String[] p = line.split("\\s*\\|\\s*");
-                if (p.length < 3) {
-                    continue;
-                }
-                String type = p[0];
-                boolean done = "1".equals(p[1]);
-                String desc = p[2];
-                Task t;
-                switch (type) {
-                case "T":
-                    t = new Todo(desc);
-                    break;
-                case "D":
-                    if (p.length < 4) continue;
-                    LocalDate by = LocalDate.parse(p[3]);
-                    t = new Deadline(desc, by);
-                    break;
-                case "E":
-                    if (p.length < 5) continue;
-                    t = new Event(desc, p[3], p[4]);
-                    break;
-                default:
-                    continue;
+                String error = replay(line, tasks, decoder);
+                if (error != null) {
+                    loadErrors.add(journal.getFileName() + " line " + lineNumber + ": " + error);
                 }
-                if (done) {
-                    t.markDone();
-                }
-                tasks.add(t);
+                journalEntries++;
             }
-        } catch (IOException ignored) {}
-        return tasks;
+        }
+    }
+
+    private static boolean isBinarySnapshot(Path path) throws IOException {
+        if (Files.notExists(path)) {
+            return false;
+        }
+        try (InputStream is = Files.newInputStream(path)) {
+            byte[] head = new byte[BinaryCodec.HEADER_BYTES];
+            return BinaryCodec.hasMagic(head, is.readNBytes(head, 0, head.length));
+        }
+    }
+
+    private void closeOffHeap() {
+        if (offHeap != null) {
+            offHeap.close();
+            offHeap = null;
+        }
+    }
+
+    private void closeMapped() {
+        if (mapped != null) {
+            try {
+                mapped.close();
+            } catch (IOException ignored) {}
+            mapped = null;
+        }
+    }
+
+    /**
+     * Returns the problems found during the last {@link #load()} or
+     * {@link #loadLazily()}, one entry per skipped line or segment. The list is empty if everything was read.
+     * After {@link #loadLazily()} it can grow later, as segments are decoded
+     * on first access.
+     *
+     * @return an unmodifiable list of human-readable error descriptions
+     */
+    public List<String> getLoadErrors() {
+        if (mapped == null || mapped.errors().isEmpty()) {
+            return Collections.unmodifiableList(loadErrors);
+        }
+        List<String> all = new ArrayList<>(loadErrors);
+        all.addAll(mapped.errors());
+        return Collections.unmodifiableList(all);
     }
 
     /**
      * Saves the given list of tasks to the save file.
      * <p>
-     * If the folder does not exist, it is created automatically.
+     * If the folder does not exist, it is created automatically. Writing a
+     * snapshot makes the journal redundant, so it is cleared afterwards,
+     * together with any entries still waiting to be flushed; if the snapshot
+     * cannot be written, both are kept. A snapshot opened by
+     * {@link #loadLazily()} that has unreadable segments is never written
+     * over, since the placeholders standing in for its broken records would
+     * replace them for good; the journal keeps growing instead. Text snapshots
+     * previously written by this instance are updated incrementally: only
+     * tasks whose {@link Task#getVersion() version} changed are re-encoded.
+     * A list loaded by {@link #loadOffHeap()} is written straight from its arena.
      *
      * @param tasks the list of {@link Task} objects to save
      */
     public void save(List<Task> tasks) {
+        snapshot(tasks);
+    }
+
+    /**
+     * Writes {@code tasks} as the new snapshot and drops the journal and the
+     * buffered entries it covers. If the snapshot cannot be written, they
+     * are all kept, so nothing recorded since the last snapshot is lost.
+     *
+     * @return whether the snapshot was written
+     */
+    private boolean snapshot(List<Task> tasks) {
+        synchronized (ioLock) {
+            if (mapped != null && !mapped.errors().isEmpty()) {
+                return false;
+            }
+            int covered;
+            synchronized (this) {
+                covered = pending.size();
+            }
+            try {
+                createParentDirectories();
+                if (format == Format.TEXT) {
+                    textWriter.write(file, tasks);
+                } else if (offHeap != null && tasks.size() == offHeap.size()) {
+                    writeOffHeapSnapshot();
+                } else {
+                    writeSnapshot(file, tasks, format);
+                }
+                Files.deleteIfExists(journal);
+            } catch (IOException e) {
+                textWriter.invalidate();
+                return false;
+            }
+            synchronized (this) {
+                // Entries buffered while the snapshot was written stay queued.
+                pending.subList(0, covered).clear();
+                journalEntries = pending.size();
+                writeError = null;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads a snapshot file, detecting its format from the first bytes.
+     *
+     * @param path   the snapshot to read
+     * @param tasks  receives the decoded tasks
+     * @param errors receives a description of every record that was skipped
+     * @return the format the file was written in
+     * @throws IOException if the file cannot be read
+     */
+    static Format readSnapshot(Path path, List<Task> tasks, List<String> errors) throws IOException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(path))) {
+            byte[] head = new byte[BinaryCodec.HEADER_BYTES];
+            is.mark(head.length);
+            int n = is.readNBytes(head, 0, head.length);
+            is.reset();
+            if (BinaryCodec.hasMagic(head, n)) {
+                BinaryCodec.read(is, tasks, errors);
+                return Format.BINARY;
+            }
+            TaskDecoder decoder = new TaskDecoder(new InputStreamReader(is, StandardCharsets.UTF_8));
+            while (decoder.nextLine()) {
+                if (decoder.isBlankLine()) {
+                    continue;
+                }
+                Task t = decoder.decodeLine();
+                if (t != null) {
+                    tasks.add(t);
+                } else {
+                    errors.add(path.getFileName() + " line " + decoder.lineNumber() + ": " + decoder.lastError());
+                }
+            }
+            return Format.TEXT;
+        }
+    }
+
+    /**
+     * Writes {@code tasks} as a complete snapshot in the given format,
+     * replacing any existing file.
+     *
+     * @param path   the snapshot to write
+     * @param tasks  the tasks to write, in list order
+     * @param format the format to write
+     * @throws IOException if the file cannot be written
+     */
+    static void writeSnapshot(Path path, List<Task> tasks, Format format) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (format == Format.BINARY) {
+                BinaryCodec.write(os, tasks);
+            } else {
+                Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16);
+                for (Task t : tasks) {
+                    w.write(t.toDataString());
+                    w.write(System.lineSeparator());
+                }
+                w.flush();
+            }
+        }
+        replace(tmp, path);
+    }
+
+    private void writeOffHeapSnapshot() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryCodec.write(ch, offHeap);
+        }
+        replace(tmp, file);
+    }
+
+    /**
+     * Moves a freshly written {@code tmp} file over {@code path}, atomically
+     * where the file system allows it. Replacing rather than truncating keeps
+     * a mapped snapshot that is still reading the old file intact.
+     *
+     * @param tmp  the new contents
+     * @param path the file to replace
+     * @throws IOException if the move fails
+     */
+    static void replace(Path tmp, Path path) throws IOException {
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Appends one mutation to the journal.
+     * <p>
+     * The cost is proportional to the size of the entry rather than the size
+     * of the list. When the journal exceeds the compaction threshold, the
+     * current {@code tasks} are written as a new snapshot instead. In
+     * write-behind mode the entry is only buffered here.
+     *
+     * @param entry the mutation that was just applied to {@code tasks}
+     * @param tasks the task list after the mutation, used for compaction
+     */
+    public void append(JournalEntry entry, List<Task> tasks) {
+        boolean compact;
+        synchronized (this) {
+            compact = journalEntries + 1 > compactThreshold;
+            if (!compact) {
+                pending.add(entry.toJournalLine());
+                journalEntries++;
+                if (batchDepth > 0) {
+                    return;
+                }
+                if (flushTask != null) {
+                    if (pending.size() >= maxBatch) {
+                        FLUSHER.execute(this::flush);
+                    }
+                    return;
+                }
+            }
+        }
+        if (compact) {
+            if (!snapshot(tasks)) {
+                // The journal still stands; keep this entry with the rest.
+                synchronized (this) {
+                    pending.add(entry.toJournalLine());
+                    journalEntries++;
+                }
+                flush();
+            }
+        } else {
+            flush();
+        }
+    }
+
+    private void createParentDirectories() throws IOException {
+        Path parent = file.getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    /**
+     * Applies one journal line to {@code tasks}.
+     *
+     * @return {@code null} on success, otherwise why the line was skipped
+     */
+    private String replay(String line, List<Task> tasks, TaskDecoder decoder) {
+        JournalEntry.Op op = JournalEntry.Op.fromCode(line.charAt(0));
+        int bar = line.indexOf('|');
+        if (op == null || bar < 0) {
+            return "unknown journal entry";
+        }
+        String rest = line.substring(bar + 1).trim();
+        if (op == JournalEntry.Op.ADD) {
+            Task t = decoder.decode(rest);
+            if (t == null) {
+                return decoder.lastError();
+            }
+            tasks.add(t);
+            return null;
+        }
+        int indexEnd = op == JournalEntry.Op.INSERT ? rest.indexOf('|') : rest.length();
+        if (indexEnd < 0) {
+            return "missing task";
+        }
+        int index;
         try {
-            Path parent = file.getParent();
-            if (parent != null && Files.notExists(parent)) {
-                Files.createDirectories(parent);
+            index = Integer.parseInt(rest.substring(0, indexEnd).trim());
+        } catch (NumberFormatException e) {
+            return "invalid index";
+        }
+        if (op == JournalEntry.Op.INSERT) {
+            if (index < 0 || index > tasks.size()) {
+                return "index out of range";
             }
-            List<String> lines = new ArrayList<>();
-            for (Task t : tasks) {
-                lines.add(t.toDataString());
+            Task t = decoder.decode(rest.substring(indexEnd + 1).trim());
+            if (t == null) {
+                return decoder.lastError();
             }
-            Files.write(file, lines, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        } catch (IOException ignored) {}
+            tasks.add(index, t);
+            return null;
+        }
+        if (index < 0 || index >= tasks.size()) {
+            return "index out of range";
+        }
+        // Columnar and off-heap lists hand out copies, so a changed task has
+        // to be written back for the change to stick.
+        switch (op) {
+        case MARK: {
+            Task t = tasks.get(index);
+            t.markDone();
+            tasks.set(index, t);
+            break;
+        }
+        case UNMARK: {
+            Task t = tasks.get(index);
+            t.markNotDone();
+            tasks.set(index, t);
+            break;
+        }
+        case DELETE:
+            tasks.remove(index);
+            break;
+        default:
+            break;
+        }
+        return null;
     }
 }
@@ -0,0 +1,227 @@
+package lazysourcea.storage;
+
+import lazysourcea.task.DateParser;
+import lazysourcea.task.Deadline;
+import lazysourcea.task.Event;
+import lazysourcea.task.Task;
+import lazysourcea.task.Todo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+
+/**
+ * Streaming decoder for the {@code T | 1 | desc | ...} data format.
+ * <p>
+ * Characters are pulled from a {@link Reader} into a reusable buffer and
+ * each line is split into fields by a hand-written scanner that records
+ * field boundaries instead of building {@code String[]} arrays. Only the
+ * strings a task actually keeps (its description and event times) are
+ * allocated. Malformed lines are not silently dropped: {@link #lastError()}
+ * describes why the most recent line could not be decoded.
+ * <p>
+ * Instances are not thread-safe; use one per load.
+ */
+class TaskDecoder {
+    private static final int MAX_FIELDS = 5;
+
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private int fieldCount;
+
+    private Reader in;
+    private final char[] buf = new char[8192];
+    private int pos = 0;
+    private int lim = 0;
+
+    private char[] line = new char[256];
+    private int lineLen = 0;
+    private int lineNumber = 0;
+
+    private String lastError;
+
+    /**
+     * Creates a decoder that reads lines from {@code in}.
+     *
+     * @param in the source of data lines, or {@code null} to decode only via {@link #decode(String)}
+     */
+    TaskDecoder(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next line into the internal buffer.
+     *
+     * @return {@code false} once the end of input is reached
+     * @throws IOException if reading fails
+     */
+    boolean nextLine() throws IOException {
+        lineLen = 0;
+        boolean sawAny = false;
+        while (true) {
+            if (pos == lim) {
+                lim = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (lim <= 0) {
+                    lim = 0;
+                    if (sawAny) {
+                        lineNumber++;
+                    }
+                    return sawAny;
+                }
+            }
+            sawAny = true;
+            char c = buf[pos++];
+            if (c == '\n') {
+                lineNumber++;
+                return true;
+            }
+            if (c != '\r') {
+                if (lineLen == line.length) {
+                    char[] bigger = new char[line.length * 2];
+                    System.arraycopy(line, 0, bigger, 0, lineLen);
+                    line = bigger;
+                }
+                line[lineLen++] = c;
+            }
+        }
+    }
+
+    /**
+     * Returns the 1-based number of the line last read by {@link #nextLine()}.
+     *
+     * @return the current line number
+     */
+    int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns whether the current line is empty or whitespace only.
+     *
+     * @return {@code true} if there is nothing to decode on this line
+     */
+    boolean isBlankLine() {
+        for (int i = 0; i < lineLen; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the current line.
+     *
+     * @return the decoded task, or {@code null} if the line is malformed
+     */
+    Task decodeLine() {
+        return decode(line, 0, lineLen);
+    }
+
+    /**
+     * Decodes a single data line held in a string.
+     *
+     * @param s the data line
+     * @return the decoded task, or {@code null} if the line is malformed
+     */
+    Task decode(String s) {
+        char[] chars = s.toCharArray();
+        return decode(chars, 0, chars.length);
+    }
+
+    /**
+     * Returns why the most recent decode returned {@code null}.
+     *
+     * @return a short description of the problem
+     */
+    String lastError() {
+        return lastError;
+    }
+
+    private Task decode(char[] c, int from, int to) {
+        split(c, from, to);
+        if (fieldCount < 3) {
+            return fail("expected at least 3 fields");
+        }
+        if (ends[0] - starts[0] != 1) {
+            return fail("unknown task type");
+        }
+        boolean done;
+        if (ends[1] - starts[1] == 1 && c[starts[1]] == '1') {
+            done = true;
+        } else if (ends[1] - starts[1] == 1 && c[starts[1]] == '0') {
+            done = false;
+        } else {
+            return fail("done flag must be 0 or 1");
+        }
+        String desc = field(c, 2);
+        Task t;
+        switch (c[starts[0]]) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            if (fieldCount < 4) {
+                return fail("deadline without date");
+            }
+            LocalDate by = DateParser.parseIso(c, starts[3], ends[3]);
+            if (by == null) {
+                return fail("invalid date");
+            }
+            t = new Deadline(desc, by);
+            break;
+        case 'E':
+            if (fieldCount < 5) {
+                return fail("event without from/to");
+            }
+            t = new Event(desc, field(c, 3), field(c, 4));
+            break;
+        default:
+            return fail("unknown task type");
+        }
+        if (done) {
+            t.markDone();
+        }
+        return t;
+    }
+
+    private Task fail(String reason) {
+        lastError = reason;
+        return null;
+    }
+
+    private String field(char[] c, int i) {
+        return new String(c, starts[i], ends[i] - starts[i]);
+    }
+
+    /**
+     * Records the trimmed boundaries of up to {@link #MAX_FIELDS} fields
+     * separated by {@code '|'}. Anything after the last recorded field is ignored.
+     */
+    private void split(char[] c, int from, int to) {
+        fieldCount = 0;
+        int start = from;
+        while (fieldCount < MAX_FIELDS) {
+            int bar = start;
+            while (bar < to && c[bar] != '|') {
+                bar++;
+            }
+            int s = start;
+            int e = bar;
+            while (s < e && Character.isWhitespace(c[s])) {
+                s++;
+            }
+            while (e > s && Character.isWhitespace(c[e - 1])) {
+                e--;
+            }
+            starts[fieldCount] = s;
+            ends[fieldCount] = e;
+            fieldCount++;
+            if (bar >= to) {
+                return;
+            }
+            start = bar + 1;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package lazysourcea.task;
+
+/**
+ * One change made to a {@link TaskList}, as recorded for undo and redo.
+ * <p>
+ * A change describes the operation that was applied: a task added at or
+ * removed from a position, or a task marked or unmarked. For marks it also
+ * keeps whether the task was done before, so that undoing a mark of an
+ * already-done task leaves it done.
+ */
+public final class Change {
+    /**
+     * Kinds of change.
+     */
+    public enum Kind {
+        ADD, REMOVE, MARK, UNMARK
+    }
+
+    public final Kind kind;
+    public final int index;
+    public final Task task;
+    private final boolean wasDone;
+
+    Change(Kind kind, int index, Task task, boolean wasDone) {
+        this.kind = kind;
+        this.index = index;
+        this.task = task;
+        this.wasDone = wasDone;
+    }
+
+    /**
+     * Returns the change that reverts this one.
+     */
+    Change inverse() {
+        switch (kind) {
+        case ADD:
+            return new Change(Kind.REMOVE, index, task, wasDone);
+        case REMOVE:
+            return new Change(Kind.ADD, index, task, wasDone);
+        default:
+            return new Change(wasDone ? Kind.MARK : Kind.UNMARK, index, task, kind == Kind.MARK);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package lazysourcea.task;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of tasks stored as a sequence of small chunks.
+ * <p>
+ * Each chunk holds up to {@code 2 * CHUNK_SIZE} tasks, and a Fenwick tree
+ * over the chunk sizes maps a position to its chunk. Getting, inserting or
+ * removing by position therefore costs O(log n) for the lookup plus a shift
+ * of at most one chunk, instead of shifting every later element as an
+ * {@link ArrayList} does. A chunk that grows too large is split and one that
+ * shrinks too small is merged with its successor; only these rare structural
+ * changes rebuild the tree.
+ */
+public class ChunkedTaskList extends AbstractList<Task> implements RandomAccess {
+    static final int CHUNK_SIZE = 512;
+
+    private final ArrayList<ArrayList<Task>> chunks = new ArrayList<>();
+    private int[] tree = new int[16];
+    private int size;
+
+    // Chunk found by the last locate() and the position of its first task;
+    // null once a mutation invalidates it. Only used while the list is
+    // confined to one thread: a concurrent reader working from a half-made
+    // change could otherwise leave behind a hint that outlives the change.
+    private Hint hint;
+    private volatile boolean shared;
+
+    private static final class Hint {
+        final int chunk;
+        final int start;
+
+        Hint(int chunk, int start) {
+            this.chunk = chunk;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Creates an empty list.
+     */
+    public ChunkedTaskList() {
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        long at = locate(index);
+        return chunks.get(chunk(at)).get(offset(at));
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        long at = locate(index);
+        return chunks.get(chunk(at)).set(offset(at), task);
+    }
+
+    @Override
+    public boolean add(Task task) {
+        int n = chunks.size();
+        if (n == 0 || chunks.get(n - 1).size() >= CHUNK_SIZE) {
+            ArrayList<Task> last = new ArrayList<>(CHUNK_SIZE);
+            last.add(task);
+            appendChunk(last);
+        } else {
+            chunks.get(n - 1).add(task);
+            adjust(n - 1, 1);
+        }
+        size++;
+        modCount++;
+        hint = null;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index == size) {
+            add(task);
+            return;
+        }
+        long at = locate(index);
+        int chunk = chunk(at);
+        ArrayList<Task> c = chunks.get(chunk);
+        c.add(offset(at), task);
+        size++;
+        modCount++;
+        if (c.size() >= 2 * CHUNK_SIZE) {
+            ArrayList<Task> upper = new ArrayList<>(c.subList(CHUNK_SIZE, c.size()));
+            c.subList(CHUNK_SIZE, c.size()).clear();
+            chunks.add(chunk + 1, upper);
+            rebuild();
+        } else {
+            adjust(chunk, 1);
+        }
+        hint = null;
+    }
+
+    @Override
+    public Task remove(int index) {
+        long at = locate(index);
+        int chunk = chunk(at);
+        ArrayList<Task> c = chunks.get(chunk);
+        Task removed = c.remove(offset(at));
+        size--;
+        modCount++;
+        if (c.isEmpty()) {
+            chunks.remove(chunk);
+            rebuild();
+        } else if (c.size() < CHUNK_SIZE / 4 && chunk + 1 < chunks.size()
+                && c.size() + chunks.get(chunk + 1).size() <= CHUNK_SIZE) {
+            c.addAll(chunks.remove(chunk + 1));
+            rebuild();
+        } else {
+            adjust(chunk, -1);
+        }
+        hint = null;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+        Arrays.fill(tree, 0);
+        size = 0;
+        modCount++;
+        hint = null;
+    }
+
+    /**
+     * Stops remembering where the last lookup landed, so that reading the
+     * list changes nothing and readers on other threads can run alongside
+     * a writer. Lookups then always descend the Fenwick tree, which costs
+     * O(log(n / CHUNK_SIZE)).
+     */
+    void share() {
+        shared = true;
+        hint = null;
+    }
+
+    /**
+     * Returns where {@code index} lives as the chunk number in the high and
+     * the offset inside it in the low 32 bits. Unless the list is shared,
+     * positions in the same or the following chunk as the previous call are
+     * resolved directly, which keeps in-order scans as cheap as on an array;
+     * anything else descends the Fenwick tree.
+     */
+    private long locate(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        boolean remember = !shared;
+        Hint h = remember ? hint : null;
+        if (h != null && index >= h.start) {
+            int rel = index - h.start;
+            int len = chunks.get(h.chunk).size();
+            if (rel < len) {
+                return at(h.chunk, rel);
+            }
+            int next = h.chunk + 1;
+            if (next < chunks.size() && rel - len < chunks.get(next).size()) {
+                hint = new Hint(next, h.start + len);
+                return at(next, rel - len);
+            }
+        }
+        int n = chunks.size();
+        int pos = 0;
+        int rem = index;
+        for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= n && tree[next] <= rem) {
+                pos = next;
+                rem -= tree[next];
+            }
+        }
+        if (remember) {
+            hint = new Hint(pos, index - rem);
+        }
+        return at(pos, rem);
+    }
+
+    private static long at(int chunk, int offset) {
+        return (long) chunk << 32 | offset;
+    }
+
+    private static int chunk(long at) {
+        return (int) (at >>> 32);
+    }
+
+    private static int offset(long at) {
+        return (int) at;
+    }
+
+    /**
+     * Adds {@code delta} to the size recorded for chunk {@code k}.
+     */
+    private void adjust(int k, int delta) {
+        for (int i = k + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Appends a chunk. Its tree nodes were still zero, so growing the list at
+     * the end only rebuilds the tree when the tree itself has to grow.
+     */
+    private void appendChunk(ArrayList<Task> c) {
+        chunks.add(c);
+        if (chunks.size() >= tree.length) {
+            rebuild();
+        } else {
+            adjust(chunks.size() - 1, c.size());
+        }
+    }
+
+    private void rebuild() {
+        int n = chunks.size();
+        int capacity = tree.length;
+        while (capacity <= n) {
+            capacity *= 2;
+        }
+        tree = new int[capacity];
+        for (int i = 1; i < capacity; i++) {
+            if (i <= n) {
+                tree[i] += chunks.get(i - 1).size();
+            }
+            int parent = i + (i & -i);
+            if (parent < capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
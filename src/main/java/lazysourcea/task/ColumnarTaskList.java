@@ -0,0 +1,301 @@
+package lazysourcea.task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A task list stored column by column in primitive arrays.
+ * <p>
+ * Instead of one object graph per task (the task, its description string and
+ * its byte array, and a {@link LocalDate} for deadlines), every task costs a
+ * type byte, a done bit, an epoch-day int, an id and an offset into a shared
+ * UTF-8 string pool. {@link #get(int)} builds a fresh {@link Task} view from
+ * the columns each time it is called, so changes made to a view are only
+ * kept once it is written back with {@link #set(int, Task)};
+ * {@link TaskList} does this for every mutation it performs.
+ * <p>
+ * Inserting or removing in the middle shifts the columns just as an
+ * {@link java.util.ArrayList} shifts its references. Strings of removed or
+ * replaced tasks stay in the pool until they make up half of it, at which
+ * point the pool is compacted.
+ */
+public class ColumnarTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    private byte[] types = new byte[16];
+    private int[] days = new int[16];
+    private long[] ids = new long[16];
+    private int[] refs = new int[16];
+    private long[] done = new long[1];
+    private byte[] pool = new byte[256];
+    private int poolSize;
+    private int garbage;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public ColumnarTaskList() {
+    }
+
+    /**
+     * Creates a list holding a copy of {@code tasks}.
+     *
+     * @param tasks the tasks to copy, in order
+     */
+    public ColumnarTaskList(Collection<? extends Task> tasks) {
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        check(index, size);
+        int[] at = {refs[index]};
+        String desc = readString(at);
+        Task t;
+        switch (types[index]) {
+        case DEADLINE:
+            t = new Deadline(desc, LocalDate.ofEpochDay(days[index]));
+            break;
+        case EVENT:
+            t = new Event(desc, readString(at), readString(at));
+            break;
+        default:
+            t = new Todo(desc);
+        }
+        if (isDone(index)) {
+            t.markDone();
+        }
+        t.id = ids[index];
+        return t;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task old = get(index);
+        garbage += lengthAt(index);
+        store(index, task);
+        setDone(index, task.isDone());
+        compactIfWasteful();
+        return old;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        check(index, size + 1);
+        ensureCapacity(size + 1);
+        int tail = size - index;
+        System.arraycopy(types, index, types, index + 1, tail);
+        System.arraycopy(days, index, days, index + 1, tail);
+        System.arraycopy(ids, index, ids, index + 1, tail);
+        System.arraycopy(refs, index, refs, index + 1, tail);
+        insertBit(index);
+        size++;
+        store(index, task);
+        setDone(index, task.isDone());
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        garbage += lengthAt(index);
+        int tail = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(days, index + 1, days, index, tail);
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(refs, index + 1, refs, index, tail);
+        removeBit(index);
+        size--;
+        modCount++;
+        compactIfWasteful();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        poolSize = 0;
+        garbage = 0;
+        Arrays.fill(done, 0);
+        modCount++;
+    }
+
+    /**
+     * Returns the number of bytes held by the column arrays and string pool,
+     * including unused capacity.
+     *
+     * @return the approximate heap footprint of the data, excluding array headers
+     */
+    public long footprintBytes() {
+        return types.length + 4L * days.length + 8L * ids.length + 4L * refs.length
+                + 8L * done.length + pool.length;
+    }
+
+    private void store(int index, Task task) {
+        refs[index] = poolSize;
+        writeString(task.getDescription());
+        if (task instanceof Deadline) {
+            types[index] = DEADLINE;
+            days[index] = (int) ((Deadline) task).getBy().toEpochDay();
+        } else if (task instanceof Event) {
+            types[index] = EVENT;
+            writeString(((Event) task).getFrom());
+            writeString(((Event) task).getTo());
+        } else {
+            types[index] = TODO;
+        }
+        ids[index] = task.id;
+    }
+
+    private boolean isDone(int index) {
+        return (done[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setDone(int index, boolean isDone) {
+        if (isDone) {
+            done[index >>> 6] |= 1L << index;
+        } else {
+            done[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Opens a zero bit at {@code index}, moving the bits at and above it up by one.
+     */
+    private void insertBit(int index) {
+        int w = index >>> 6;
+        int last = size >>> 6;
+        for (int k = last; k > w; k--) {
+            done[k] = (done[k] << 1) | (done[k - 1] >>> 63);
+        }
+        long mask = (1L << index) - 1;
+        long word = done[w];
+        done[w] = (word & mask) | ((word & ~mask) << 1);
+    }
+
+    /**
+     * Drops the bit at {@code index}, moving the bits above it down by one.
+     */
+    private void removeBit(int index) {
+        int w = index >>> 6;
+        int last = (size - 1) >>> 6;
+        long mask = (1L << index) - 1;
+        long word = done[w];
+        done[w] = (word & mask) | ((word >>> 1) & ~mask);
+        for (int k = w; k < last; k++) {
+            done[k] |= done[k + 1] << 63;
+            done[k + 1] >>>= 1;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n > types.length) {
+            int capacity = Math.max(n, types.length * 2);
+            types = Arrays.copyOf(types, capacity);
+            days = Arrays.copyOf(days, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+        int words = (n + 63) >>> 6;
+        if (words > done.length) {
+            done = Arrays.copyOf(done, Math.max(words, done.length * 2));
+        }
+    }
+
+    /**
+     * Appends {@code s} to the pool as a varint length followed by its UTF-8 bytes.
+     */
+    private void writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int need = poolSize + 5 + bytes.length;
+        if (need > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(need, pool.length * 2));
+        }
+        int len = bytes.length;
+        while (len >= 0x80) {
+            pool[poolSize++] = (byte) (len | 0x80);
+            len >>>= 7;
+        }
+        pool[poolSize++] = (byte) len;
+        System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+        poolSize += bytes.length;
+    }
+
+    /**
+     * Reads the string at {@code at[0]} and advances {@code at[0]} past it.
+     */
+    private String readString(int[] at) {
+        int len = readLength(at);
+        String s = new String(pool, at[0], len, StandardCharsets.UTF_8);
+        at[0] += len;
+        return s;
+    }
+
+    /**
+     * Decodes the varint length at {@code at[0]} and advances {@code at[0]} to
+     * the first byte of the string.
+     */
+    private int readLength(int[] at) {
+        int pos = at[0];
+        int len = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = pool[pos++];
+            len |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        at[0] = pos;
+        return len;
+    }
+
+    /**
+     * Returns how many pool bytes the strings of the task at {@code index} use.
+     */
+    private int lengthAt(int index) {
+        int[] at = {refs[index]};
+        int strings = types[index] == EVENT ? 3 : 1;
+        for (int i = 0; i < strings; i++) {
+            int len = readLength(at);
+            at[0] += len;
+        }
+        return at[0] - refs[index];
+    }
+
+    private void compactIfWasteful() {
+        if (garbage <= poolSize / 2) {
+            return;
+        }
+        byte[] fresh = new byte[Math.max(256, poolSize - garbage)];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int len = lengthAt(i);
+            System.arraycopy(pool, refs[i], fresh, n, len);
+            refs[i] = n;
+            n += len;
+        }
+        pool = fresh;
+        poolSize = n;
+        garbage = 0;
+    }
+
+    private void check(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package lazysourcea.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Fast date decoding for user input and saved data.
+ * <p>
+ * The common shapes ({@code yyyy-MM-dd} and {@code d/M/yyyy}) are recognised
+ * up front and decoded straight from their digits, so valid dates never go
+ * through {@link DateTimeFormatter} or pay for a thrown exception. Results
+ * are kept in a small direct-mapped cache because task lists tend to reuse a
+ * handful of dates. Anything outside the fast path falls back to the
+ * formatters and therefore behaves exactly as before.
+ */
+public final class DateParser {
+    private static final DateTimeFormatter IN_ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter IN_SLASH = DateTimeFormatter.ofPattern("d/M/yyyy");
+
+    private static final int CACHE_BITS = 9;
+    private static final Entry[] CACHE = new Entry[1 << CACHE_BITS];
+
+    /**
+     * An immutable cache slot, so that slots can be replaced without locking.
+     */
+    private static final class Entry {
+        final int key;
+        final LocalDate date;
+
+        Entry(int key, LocalDate date) {
+            this.key = key;
+            this.date = date;
+        }
+    }
+
+    private DateParser() {
+    }
+
+    /**
+     * Parses a user-entered date in {@code yyyy-MM-dd} or {@code d/M/yyyy} form.
+     * <p>
+     * Like the formatters it replaces, a day that is too large for its month
+     * (e.g. 30 February) is moved back to the last day of that month.
+     *
+     * @param s the text to parse
+     * @return the parsed date
+     * @throws DateTimeParseException if {@code s} is in neither format
+     */
+    public static LocalDate parse(String s) {
+        int n = s.length();
+        if (n == 10 && s.charAt(4) == '-' && s.charAt(7) == '-') {
+            LocalDate d = lenient(digits(s, 0, 4), digits(s, 5, 7), digits(s, 8, 10));
+            if (d != null) {
+                return d;
+            }
+        } else {
+            int slash1 = s.indexOf('/');
+            int slash2 = slash1 < 0 ? -1 : s.indexOf('/', slash1 + 1);
+            int monthLen = slash2 - slash1 - 1;
+            if (slash1 >= 1 && slash1 <= 2 && monthLen >= 1 && monthLen <= 2 && n - slash2 == 5) {
+                LocalDate d = lenient(digits(s, slash2 + 1, n),
+                        digits(s, slash1 + 1, slash2), digits(s, 0, slash1));
+                if (d != null) {
+                    return d;
+                }
+            }
+        }
+        return parseSlow(s);
+    }
+
+    /**
+     * Parses an event time of the form {@code <date>} or {@code <date> <time>},
+     * where the date is in either format accepted by {@link #parse(String)}
+     * and the time is {@code H:mm} or {@code HHmm}.
+     * <p>
+     * A date without a time stands for the whole day: it becomes the start of
+     * that day, or the start of the next day when {@code isEnd} is set, so that
+     * an event from and to the same date lasts one day. Free-form text such as
+     * {@code Mon 2pm} is not an error; it simply has no typed value.
+     *
+     * @param s     the text to parse
+     * @param isEnd whether {@code s} is the end of a range
+     * @return the parsed instant, or {@code null} if {@code s} is not a date
+     */
+    public static LocalDateTime parseDateTime(String s, boolean isEnd) {
+        String text = s.trim();
+        int space = text.indexOf(' ');
+        LocalDate date = tryParse(space < 0 ? text : text.substring(0, space));
+        if (date == null) {
+            return null;
+        }
+        if (space < 0) {
+            return isEnd ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        }
+        LocalTime time = parseTime(text.substring(space + 1).trim());
+        return time == null ? null : date.atTime(time);
+    }
+
+    /**
+     * Like {@link #parse(String)}, but returns {@code null} instead of
+     * throwing, and does not go near the formatters for text that is not
+     * shaped like a date at all.
+     */
+    private static LocalDate tryParse(String s) {
+        int n = s.length();
+        boolean isIso = n == 10 && s.charAt(4) == '-' && s.charAt(7) == '-';
+        int slash1 = s.indexOf('/');
+        boolean isSlash = slash1 > 0 && s.indexOf('/', slash1 + 1) > slash1 + 1;
+        if (!isIso && !isSlash) {
+            return null;
+        }
+        try {
+            return parse(s);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalTime parseTime(String t) {
+        int n = t.length();
+        int colon = t.indexOf(':');
+        int hour;
+        int minute;
+        if (colon < 0 && n == 4) {
+            hour = digits(t, 0, 2);
+            minute = digits(t, 2, 4);
+        } else if ((colon == 1 || colon == 2) && n == colon + 3) {
+            hour = digits(t, 0, colon);
+            minute = digits(t, colon + 1, n);
+        } else {
+            return null;
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Decodes a strict ISO {@code yyyy-MM-dd} date from {@code c[from, to)}.
+     *
+     * @param c    the characters holding the date
+     * @param from index of the first character
+     * @param to   index after the last character
+     * @return the date, or {@code null} if the text is not a valid ISO date
+     */
+    public static LocalDate parseIso(char[] c, int from, int to) {
+        if (to - from != 10 || c[from + 4] != '-' || c[from + 7] != '-') {
+            return null;
+        }
+        int year = digits(c, from, from + 4);
+        int month = digits(c, from + 5, from + 7);
+        int day = digits(c, from + 8, from + 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        LocalDate d = cached(year, month, Math.min(day, 31));
+        return d.getDayOfMonth() == day ? d : null;
+    }
+
+    /**
+     * Resolves the fields the way the formatters' smart resolver does, or
+     * returns {@code null} to send the input down the slow path.
+     */
+    private static LocalDate lenient(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        return cached(year, month, day);
+    }
+
+    /**
+     * Returns the date for the given fields, clamping the day to the month's
+     * length, from the cache when possible.
+     */
+    private static LocalDate cached(int year, int month, int day) {
+        int key = (year * 100 + month) * 100 + day;
+        int slot = (key * 0x9E3779B9) >>> (32 - CACHE_BITS);
+        Entry e = CACHE[slot];
+        if (e != null && e.key == key) {
+            return e.date;
+        }
+        LocalDate first = LocalDate.of(year, month, 1);
+        LocalDate date = first.withDayOfMonth(Math.min(day, first.lengthOfMonth()));
+        CACHE[slot] = new Entry(key, date);
+        return date;
+    }
+
+    private static LocalDate parseSlow(String s) {
+        try {
+            return LocalDate.parse(s, IN_ISO);
+        } catch (DateTimeParseException ignored) {
+            return LocalDate.parse(s, IN_SLASH);
+        }
+    }
+
+    private static int digits(CharSequence s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static int digits(char[] c, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = c[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+}
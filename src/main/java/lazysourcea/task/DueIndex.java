@@ -0,0 +1,69 @@
+package lazysourcea.task;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Index of deadlines by due date.
+ * <p>
+ * A sorted map from each due date to the ids of the deadlines due that day,
+ * so a date range is answered by visiting only the dates inside it.
+ * Other kinds of task are ignored.
+ */
+class DueIndex implements TaskIndex {
+    private final TreeMap<LocalDate, PostingList> byDate = new TreeMap<>();
+
+    @Override
+    public void add(Task task) {
+        if (task instanceof Deadline) {
+            byDate.computeIfAbsent(((Deadline) task).getBy(), d -> new PostingList()).add(task.id);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task instanceof Deadline) {
+            LocalDate by = ((Deadline) task).getBy();
+            PostingList list = byDate.get(by);
+            if (list != null) {
+                list.remove(task.id);
+                if (list.isEmpty()) {
+                    byDate.remove(by);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        // Only the due date is indexed, and it never changes.
+    }
+
+    /**
+     * Returns the ids of deadlines due between {@code from} and {@code to},
+     * ordered by due date and then by id.
+     *
+     * @param from first due date to include, or {@code null} for no lower bound
+     * @param to   last due date to include
+     * @return matching task ids
+     */
+    long[] between(LocalDate from, LocalDate to) {
+        Collection<PostingList> lists = from == null
+                ? byDate.headMap(to, true).values()
+                : byDate.subMap(from, true, to, true).values();
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size();
+        }
+        long[] ids = new long[total];
+        int n = 0;
+        for (PostingList list : lists) {
+            long[] day = list.toArray();
+            System.arraycopy(day, 0, ids, n, day.length);
+            n += day.length;
+        }
+        return n == total ? ids : Arrays.copyOf(ids, n);
+    }
+}
@@ -1,28 +1,92 @@
 package lazysourcea.task;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents a {@link Task} that spans a period of time.
  * <p>
  * An event task has a description, a start time, and an end time.
  * Unlike {@link Deadline}, which has a single due date, an event
  * specifies both the beginning and end of the activity.
+ * <p>
+ * The times are kept as entered for display and saving. When both are
+ * dates (optionally with a time of day) the event also has a typed
+ * {@link #getStart() start} and {@link #getEnd() end}, which lets it be
+ * searched by date and checked for clashes.
  */
 public class Event extends Task {
     protected String from;
     protected String to;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
 
     /**
      * Creates a new {@code Event} with the given description and time range.
+     * Typed times are derived from the text where possible.
      *
      * @param description description of the event
      * @param from the start time or date of the event
      * @param to the end time or date of the event
      */
-
     public Event(String description, String from, String to) {
+        this(description, from, to, DateParser.parseDateTime(from, false), DateParser.parseDateTime(to, true));
+    }
+
+    /**
+     * Creates a new {@code Event} with already parsed times.
+     * <p>
+     * The typed times are dropped unless both are present and {@code end}
+     * is after {@code start}.
+     *
+     * @param description description of the event
+     * @param from the start time or date of the event, as entered
+     * @param to the end time or date of the event, as entered
+     * @param start the parsed start, or {@code null}
+     * @param end the parsed (exclusive) end, or {@code null}
+     */
+    public Event(String description, String from, String to, LocalDateTime start, LocalDateTime end) {
         super(description);
         this.from = from;
         this.to = to;
+        boolean isTyped = start != null && end != null && end.isAfter(start);
+        this.start = isTyped ? start : null;
+        this.end = isTyped ? end : null;
+    }
+
+    /**
+     * Returns the start time of this event as entered.
+     *
+     * @return the start time text
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end time of this event as entered.
+     *
+     * @return the end time text
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Returns when this event starts, if its times are dates.
+     *
+     * @return the start, or {@code null} if the times are free-form text
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns when this event ends (exclusive), if its times are dates.
+     *
+     * @return the end, or {@code null} if the times are free-form text
+     */
+    public LocalDateTime getEnd() {
+        return end;
     }
 
     /**
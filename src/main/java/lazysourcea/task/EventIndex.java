@@ -0,0 +1,216 @@
+package lazysourcea.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Interval tree over events with typed times.
+ * <p>
+ * A treap ordered by (start, id), where every node also records the latest
+ * end in its subtree. An overlap query skips any subtree whose latest end
+ * is before the query starts and everything right of a node that starts
+ * after the query ends, so it visits O(log n + k) nodes for k results.
+ * Times are stored as epoch minutes. Events with free-form times are not
+ * indexed.
+ */
+class EventIndex implements TaskIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private static class Node {
+        final long start;
+        final long end;
+        final long id;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+
+    @Override
+    public void add(Task task) {
+        if (task instanceof Event && ((Event) task).getStart() != null) {
+            Event e = (Event) task;
+            root = insert(root, new Node(minutes(e.getStart()), minutes(e.getEnd()), task.id));
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task instanceof Event && ((Event) task).getStart() != null) {
+            root = delete(root, minutes(((Event) task).getStart()), task.id);
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        // Only the times are indexed, and they never change.
+    }
+
+    /**
+     * Returns the ids of events overlapping the half-open range
+     * {@code [from, to)}, ordered by start time and then by id.
+     *
+     * @param from start of the range
+     * @param to   end of the range (exclusive)
+     * @return matching task ids
+     */
+    long[] overlapping(LocalDateTime from, LocalDateTime to) {
+        long[][] found = {EMPTY};
+        int count = collect(root, minutes(from), minutes(to), found, 0);
+        return Arrays.copyOf(found[0], count);
+    }
+
+    /**
+     * Returns the ids of events starting after minute {@code after} and at
+     * or before minute {@code upTo}, ordered by start time and then by id.
+     *
+     * @param after last epoch minute to leave out
+     * @param upTo  last epoch minute to include
+     * @return matching task ids
+     */
+    long[] startingBetween(long after, long upTo) {
+        long[][] found = {EMPTY};
+        int count = collectStarts(root, after, upTo, found, 0);
+        return Arrays.copyOf(found[0], count);
+    }
+
+    private static int collectStarts(Node node, long after, long upTo, long[][] found, int count) {
+        if (node == null) {
+            return count;
+        }
+        if (node.start > after) {
+            count = collectStarts(node.left, after, upTo, found, count);
+            if (node.start <= upTo) {
+                if (count == found[0].length) {
+                    found[0] = Arrays.copyOf(found[0], Math.max(8, count * 2));
+                }
+                found[0][count++] = node.id;
+            }
+        }
+        return node.start <= upTo ? collectStarts(node.right, after, upTo, found, count) : count;
+    }
+
+    /**
+     * Appends the matching ids under {@code node} to {@code found[0]}, which
+     * already holds {@code count} of them, and returns the new count. The
+     * buffer is passed in rather than kept in a field so that queries can
+     * run concurrently.
+     */
+    private static int collect(Node node, long from, long to, long[][] found, int count) {
+        if (node == null || node.maxEnd <= from) {
+            return count;
+        }
+        count = collect(node.left, from, to, found, count);
+        if (node.start >= to) {
+            return count;
+        }
+        if (node.end > from) {
+            if (count == found[0].length) {
+                found[0] = Arrays.copyOf(found[0], Math.max(8, count * 2));
+            }
+            found[0][count++] = node.id;
+        }
+        return collect(node.right, from, to, found, count);
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (before(fresh.start, fresh.id, node)) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        fix(node);
+        return node;
+    }
+
+    private static Node delete(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        if (node.start == start && node.id == id) {
+            return merge(node.left, node.right);
+        }
+        if (before(start, id, node)) {
+            node.left = delete(node.left, start, id);
+        } else {
+            node.right = delete(node.right, start, id);
+        }
+        fix(node);
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every key of {@code a} precedes every key of {@code b}.
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            fix(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        fix(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node l = node.left;
+        node.left = l.right;
+        l.right = node;
+        fix(node);
+        return l;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node r = node.right;
+        node.right = r.left;
+        r.left = node;
+        fix(node);
+        return r;
+    }
+
+    private static void fix(Node node) {
+        long max = node.end;
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.maxEnd);
+        }
+        node.maxEnd = max;
+    }
+
+    private static boolean before(long start, long id, Node node) {
+        return start < node.start || (start == node.start && id < node.id);
+    }
+
+    static long minutes(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
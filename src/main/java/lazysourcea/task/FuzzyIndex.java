@@ -0,0 +1,176 @@
+package lazysourcea.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo-tolerant index from description words to the ids of the tasks using them.
+ * <p>
+ * The distinct words are kept in a BK-tree under Levenshtein distance:
+ * each child hangs off its parent by its distance to the parent's word.
+ * By the triangle inequality, words within {@code k} of a term can only lie
+ * under edges within {@code k} of the term's distance to the node, so a
+ * lookup with a small {@code k} visits a small part of the vocabulary
+ * rather than every description. Words are split as in {@link KeywordIndex}.
+ * <p>
+ * A word no task uses any more stays in the tree, skipped by lookups,
+ * until such words make up half of it; then the tree is built again.
+ */
+class FuzzyIndex implements TaskIndex {
+    private static final int REBUILD_MIN = 64;
+
+    private static final class Node {
+        final String word;
+        final PostingList ids = new PostingList();
+        Map<Integer, Node> children;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private final HashMap<String, Node> byWord = new HashMap<>();
+    private Node root;
+    private int unused;
+
+    @Override
+    public void add(Task task) {
+        for (String word : KeywordIndex.tokenize(task.getDescription())) {
+            Node node = byWord.get(word);
+            if (node == null) {
+                node = new Node(word);
+                byWord.put(word, node);
+                insert(node);
+            } else if (node.ids.isEmpty()) {
+                unused--;
+            }
+            node.ids.add(task.id);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : KeywordIndex.tokenize(task.getDescription())) {
+            Node node = byWord.get(word);
+            if (node != null && !node.ids.isEmpty()) {
+                node.ids.remove(task.id);
+                if (node.ids.isEmpty()) {
+                    unused++;
+                }
+            }
+        }
+        if (unused >= REBUILD_MIN && unused * 2 >= byWord.size()) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        // Only the description is indexed, and descriptions never change.
+    }
+
+    /**
+     * Returns, for each task with a word within {@code maxDistance} edits of
+     * {@code word}, the fewest edits of any of its words.
+     *
+     * @param word        one lower-case word
+     * @param maxDistance most insertions, deletions and substitutions allowed
+     * @return task id to edit distance
+     */
+    Map<Long, Integer> lookup(String word, int maxDistance) {
+        Map<Long, Integer> found = new HashMap<>();
+        if (root == null) {
+            return found;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int d = distance(word, node.word);
+            if (d <= maxDistance) {
+                for (long id : node.ids.toArray()) {
+                    found.merge(id, d, Math::min);
+                }
+            }
+            if (node.children != null) {
+                for (Map.Entry<Integer, Node> e : node.children.entrySet()) {
+                    if (Math.abs(e.getKey() - d) <= maxDistance) {
+                        pending.add(e.getValue());
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of distinct words in the tree, including unused ones.
+     *
+     * @return the vocabulary size
+     */
+    int vocabularySize() {
+        return byWord.size();
+    }
+
+    private void insert(Node fresh) {
+        if (root == null) {
+            root = fresh;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(fresh.word, node.word);
+            if (node.children == null) {
+                node.children = new HashMap<>();
+            }
+            Node next = node.children.get(d);
+            if (next == null) {
+                node.children.put(d, fresh);
+                return;
+            }
+            node = next;
+        }
+    }
+
+    private void rebuild() {
+        List<Node> live = new ArrayList<>();
+        for (Node node : byWord.values()) {
+            if (!node.ids.isEmpty()) {
+                node.children = null;
+                live.add(node);
+            }
+        }
+        byWord.clear();
+        root = null;
+        unused = 0;
+        for (Node node : live) {
+            byWord.put(node.word, node);
+            insert(node);
+        }
+    }
+
+    /**
+     * Levenshtein distance between {@code a} and {@code b}, using two rows.
+     */
+    static int distance(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = prev[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                cur[j] = Math.min(substitute, Math.min(prev[j], cur[j - 1]) + 1);
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()];
+    }
+}
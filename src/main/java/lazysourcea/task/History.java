@@ -0,0 +1,85 @@
+package lazysourcea.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo stacks of a {@link TaskList}.
+ * <p>
+ * Each step is the list of {@link Change}s made by one command. Instead of
+ * keeping a copy of the list per version, a step only holds what changed,
+ * so recording costs O(1) per change whatever the list's size, and undoing
+ * replays the inverses at O(log n) each. At most {@code limit} steps are
+ * kept; the oldest are forgotten first.
+ */
+class History {
+    private final ArrayDeque<List<Change>> undo = new ArrayDeque<>();
+    private final ArrayDeque<List<Change>> redo = new ArrayDeque<>();
+    private final int limit;
+    private List<Change> open;
+    private boolean recording = true;
+
+    History(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Starts a step; changes recorded until {@link #end()} are undone together.
+     */
+    void begin() {
+        open = null;
+    }
+
+    /**
+     * Adds {@code change} to the open step, unless an undo or redo is being applied.
+     */
+    void record(Change change) {
+        if (!recording) {
+            return;
+        }
+        if (open == null) {
+            open = new ArrayList<>(2);
+        }
+        open.add(change);
+    }
+
+    /**
+     * Closes the open step. A step with changes becomes the latest undo step
+     * and makes the redo stack obsolete.
+     */
+    void end() {
+        if (open != null) {
+            push(undo, open);
+            redo.clear();
+            open = null;
+        }
+    }
+
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    List<Change> popUndo() {
+        return undo.pollLast();
+    }
+
+    List<Change> popRedo() {
+        return redo.pollLast();
+    }
+
+    void pushUndo(List<Change> step) {
+        push(undo, step);
+    }
+
+    void pushRedo(List<Change> step) {
+        push(redo, step);
+    }
+
+    private void push(ArrayDeque<List<Change>> stack, List<Change> step) {
+        stack.addLast(step);
+        if (stack.size() > limit) {
+            stack.pollFirst();
+        }
+    }
+}
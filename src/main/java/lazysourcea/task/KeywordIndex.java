@@ -0,0 +1,125 @@
+package lazysourcea.task;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from description words to the ids of the tasks using them.
+ * <p>
+ * Descriptions are split into lower-cased runs of letters and digits. A
+ * lookup term matches every indexed word it is a prefix of (so {@code boo}
+ * finds {@code book}), which only visits the matching range of the sorted
+ * word map instead of every task.
+ */
+class KeywordIndex implements SearchIndex {
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+
+    @Override
+    public void add(Task task) {
+        for (String word : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(word, w -> new PostingList()).add(task.id);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : tokenize(task.getDescription())) {
+            PostingList list = postings.get(word);
+            if (list != null) {
+                list.remove(task.id);
+                if (list.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        // Only the description is indexed, and descriptions never change.
+    }
+
+    /**
+     * Returns the ids of tasks with a word starting with {@code term}.
+     * A term made of several words (e.g. {@code e-mail}) must match all of them.
+     *
+     * @param term the search term
+     * @return matching task ids in ascending order
+     */
+    @Override
+    public long[] lookup(String term) {
+        long[] result = null;
+        for (String word : tokenize(term)) {
+            long[] ids = new long[0];
+            for (Map.Entry<String, PostingList> e : postings.subMap(word, word + Character.MAX_VALUE).entrySet()) {
+                ids = PostingList.union(ids, e.getValue().toArray());
+            }
+            result = result == null ? ids : PostingList.intersect(result, ids);
+        }
+        return result == null ? new long[0] : result;
+    }
+
+    /**
+     * Returns the number of distinct indexed words.
+     *
+     * @return the vocabulary size
+     */
+    int vocabularySize() {
+        return postings.size();
+    }
+
+    /**
+     * Splits text into distinct lower-cased words of letters and digits.
+     *
+     * @param text the text to split
+     * @return the words in order of first appearance
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                words.add(text.substring(start, i).toLowerCase());
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Splits a query into OR-separated groups of AND-ed terms. Groups are
+     * separated by the upper-case word {@code OR}; other words are terms.
+     *
+     * @param query the raw query, e.g. {@code "book OR pen"}
+     * @return the groups, each a list of terms
+     */
+    static List<List<String>> parseQuery(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+            } else if (!word.isEmpty()) {
+                group.add(word);
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,280 @@
+package lazysourcea.task;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A task list whose records live outside the Java heap.
+ * <p>
+ * Records are kept in an arena of direct {@link ByteBuffer} chunks that
+ * grows one chunk at a time. Each record occupies a slot whose size is a
+ * power of two; a deleted slot goes onto a free list for its size and is
+ * reused by the next record of that size, and a record that changes in
+ * place (e.g. its done flag) keeps its slot. The heap only holds the chunk
+ * objects and primitive arrays of slot addresses, which the garbage
+ * collector never has to trace into.
+ * <p>
+ * Slot layout: size class (u8) | task id (i64) | record length (i32) |
+ * record. The record itself uses the binary snapshot record layout (type,
+ * flags, length-prefixed UTF-8 strings, epoch day), so {@link #record(int)}
+ * can hand its bytes to storage to be written out unchanged.
+ * <p>
+ * As with {@link ColumnarTaskList}, {@link #get(int)} returns a fresh view
+ * and changes are kept once the task is written back with
+ * {@link #set(int, Task)}.
+ */
+public class OffHeapTaskList extends AbstractList<Task> implements RandomAccess, Closeable {
+    static final int CHUNK_BYTES = 1 << 20;
+
+    private static final int MIN_SLOT_SHIFT = 5;
+    private static final int SLOT_HEADER = 1 + 8 + 4;
+    private static final int FLAG_DONE = 1;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+    private final long[][] freeSlots = new long[32][];
+    private final int[] freeCounts = new int[32];
+    private int current = -1;
+    private int top = CHUNK_BYTES;
+    private long[] addresses = new long[16];
+    private int size;
+
+    /**
+     * Creates an empty list. No off-heap memory is reserved until the first add.
+     */
+    public OffHeapTaskList() {
+    }
+
+    /**
+     * Creates a list holding a copy of {@code tasks}.
+     *
+     * @param tasks the tasks to copy, in order
+     */
+    public OffHeapTaskList(Collection<? extends Task> tasks) {
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        ByteBuffer r = record(index);
+        int type = r.get();
+        int flags = r.get();
+        String desc = readString(r);
+        Task t;
+        switch (type) {
+        case 'D':
+            t = new Deadline(desc, LocalDate.ofEpochDay(r.getInt()));
+            break;
+        case 'E':
+            String from = readString(r);
+            t = new Event(desc, from, readString(r));
+            break;
+        default:
+            t = new Todo(desc);
+        }
+        if ((flags & FLAG_DONE) != 0) {
+            t.markDone();
+        }
+        long address = addresses[index];
+        t.id = chunk(address).getLong(offset(address) + 1);
+        return t;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task old = get(index);
+        long address = addresses[index];
+        byte[][] strings = strings(task);
+        int shift = sizeClass(SLOT_HEADER + recordLength(task, strings));
+        if (shift == chunk(address).get(offset(address))) {
+            encode(address, task, strings);
+        } else {
+            free(address);
+            addresses[index] = encode(allocate(shift), task, strings);
+        }
+        return old;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        byte[][] strings = strings(task);
+        long address = encode(allocate(sizeClass(SLOT_HEADER + recordLength(task, strings))), task, strings);
+        if (size == addresses.length) {
+            addresses = Arrays.copyOf(addresses, size * 2);
+        }
+        System.arraycopy(addresses, index, addresses, index + 1, size - index);
+        addresses[index] = address;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        free(addresses[index]);
+        System.arraycopy(addresses, index + 1, addresses, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Returns a read-only view of the record of the task at {@code index},
+     * in the binary snapshot record layout. The view shares the off-heap
+     * memory and is valid until the list is next modified.
+     *
+     * @param index zero-based index of the task
+     * @return the record bytes, positioned at the type byte
+     */
+    public ByteBuffer record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        long address = addresses[index];
+        ByteBuffer r = chunk(address).duplicate();
+        int start = offset(address) + 1 + 8;
+        int length = r.getInt(start);
+        r.limit(start + 4 + length).position(start + 4);
+        return r.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns how many off-heap bytes the arena has reserved.
+     *
+     * @return the total size of all chunks
+     */
+    public long reservedBytes() {
+        long total = 0;
+        for (ByteBuffer c : chunks) {
+            total += c.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * Drops the arena. Its memory is returned once the chunk buffers are
+     * collected; the list is empty afterwards.
+     */
+    @Override
+    public void close() {
+        chunks.clear();
+        Arrays.fill(freeSlots, null);
+        Arrays.fill(freeCounts, 0);
+        current = -1;
+        top = CHUNK_BYTES;
+        size = 0;
+        modCount++;
+    }
+
+    private long allocate(int shift) {
+        if (freeCounts[shift] > 0) {
+            return freeSlots[shift][--freeCounts[shift]];
+        }
+        int slot = 1 << shift;
+        if (slot >= CHUNK_BYTES) {
+            chunks.add(ByteBuffer.allocateDirect(slot));
+            return address(chunks.size() - 1, 0);
+        }
+        if (top + slot > CHUNK_BYTES) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_BYTES));
+            current = chunks.size() - 1;
+            top = 0;
+        }
+        long address = address(current, top);
+        top += slot;
+        return address;
+    }
+
+    private void free(long address) {
+        int shift = chunk(address).get(offset(address));
+        long[] slots = freeSlots[shift];
+        if (slots == null) {
+            slots = freeSlots[shift] = new long[16];
+        } else if (freeCounts[shift] == slots.length) {
+            slots = freeSlots[shift] = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[freeCounts[shift]++] = address;
+    }
+
+    private long encode(long address, Task task, byte[][] strings) {
+        ByteBuffer c = chunk(address);
+        int at = offset(address);
+        int length = recordLength(task, strings);
+        c.put(at, (byte) sizeClass(SLOT_HEADER + length));
+        c.putLong(at + 1, task.id);
+        c.putInt(at + 9, length);
+        ByteBuffer r = c.duplicate();
+        r.position(at + SLOT_HEADER);
+        r.put((byte) (task instanceof Deadline ? 'D' : task instanceof Event ? 'E' : 'T'));
+        r.put((byte) (task.isDone() ? FLAG_DONE : 0));
+        writeString(r, strings[0]);
+        if (task instanceof Deadline) {
+            r.putInt((int) ((Deadline) task).getBy().toEpochDay());
+        } else if (task instanceof Event) {
+            writeString(r, strings[1]);
+            writeString(r, strings[2]);
+        }
+        return address;
+    }
+
+    private static byte[][] strings(Task task) {
+        byte[] desc = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (task instanceof Event) {
+            Event e = (Event) task;
+            return new byte[][] {desc, e.getFrom().getBytes(StandardCharsets.UTF_8),
+                e.getTo().getBytes(StandardCharsets.UTF_8)};
+        }
+        return new byte[][] {desc};
+    }
+
+    private static int recordLength(Task task, byte[][] strings) {
+        int length = 2;
+        for (byte[] s : strings) {
+            length += 4 + s.length;
+        }
+        return task instanceof Deadline ? length + 4 : length;
+    }
+
+    private static int sizeClass(int bytes) {
+        return Math.max(MIN_SLOT_SHIFT, 32 - Integer.numberOfLeadingZeros(bytes - 1));
+    }
+
+    private static void writeString(ByteBuffer r, byte[] s) {
+        r.putInt(s.length);
+        r.put(s);
+    }
+
+    private static String readString(ByteBuffer r) {
+        byte[] b = new byte[r.getInt()];
+        r.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static long address(int chunk, int offset) {
+        return (long) chunk << 32 | offset;
+    }
+}
@@ -0,0 +1,92 @@
+package lazysourcea.task;
+
+import java.time.ZoneOffset;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Keeps the tasks sorted in one {@link TaskList.Order}.
+ * <p>
+ * Tasks are grouped into buckets by their sort key, held in a sorted map,
+ * and each bucket is a {@link PostingList} of task ids. Ids increase along
+ * the list, so walking the buckets in key order and each bucket's ids in
+ * ascending order gives the tasks in sorted order, with ties in list order,
+ * without ever sorting. A bucket only holds its own ids, so the index takes
+ * O(n) memory and a walk O(n) time however many distinct keys there are.
+ * Adding or removing a task costs O(log n) plus a shift within one chunk of
+ * its bucket, even in the status and type orders, whose few buckets each
+ * hold a large part of the list; marking one moves it between two buckets.
+ */
+class OrderIndex implements TaskIndex {
+    private static final long UNDATED = Long.MAX_VALUE;
+
+    private final TaskList.Order order;
+    private final TreeMap<Long, PostingList> buckets = new TreeMap<>();
+
+    OrderIndex(TaskList.Order order) {
+        this.order = order;
+    }
+
+    @Override
+    public void add(Task task) {
+        buckets.computeIfAbsent(key(task), k -> new PostingList()).add(task.id);
+    }
+
+    @Override
+    public void remove(Task task) {
+        long key = key(task);
+        PostingList bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(task.id);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        PostingList bucket = buckets.get(key(task));
+        if (bucket != null && bucket.contains(task.id)) {
+            return;
+        }
+        // Only the done flag changes, so only the status order gets here,
+        // and it has just two buckets to look through.
+        buckets.values().removeIf(b -> {
+            b.remove(task.id);
+            return b.isEmpty();
+        });
+        add(task);
+    }
+
+    /**
+     * Visits the ids of the tasks in this order until {@code visitor}
+     * returns {@code false}.
+     *
+     * @param visitor receives each id in turn
+     */
+    void forEach(LongPredicate visitor) {
+        for (PostingList bucket : buckets.values()) {
+            if (!bucket.forEach(visitor)) {
+                return;
+            }
+        }
+    }
+
+    private long key(Task task) {
+        switch (order) {
+        case DATE:
+            if (task instanceof Deadline) {
+                return ((Deadline) task).getBy().toEpochDay() * 24 * 60;
+            }
+            if (task instanceof Event && ((Event) task).getStart() != null) {
+                return ((Event) task).getStart().toEpochSecond(ZoneOffset.UTC) / 60;
+            }
+            return UNDATED;
+        case STATUS:
+            return task.isDone() ? 1 : 0;
+        default:
+            return task instanceof Todo ? 0 : task instanceof Deadline ? 1 : 2;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package lazysourcea.task;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * A sorted, duplicate-free set of task ids backed by primitive arrays.
+ * <p>
+ * The ids are kept in a sequence of sorted chunks, each holding up to
+ * {@code 2 * CHUNK_SIZE} ids, as {@link ChunkedTaskList} keeps its tasks. A
+ * binary search over the chunks' first ids finds the chunk for an id, so
+ * adding or removing costs O(log n) plus a shift within one chunk, however
+ * long the list grows. Task ids are handed out in increasing order, so
+ * adding the newest task is an append to the last chunk. A chunk that grows
+ * too large is split and one that shrinks too small is merged with its
+ * successor. The static helpers combine sorted id arrays for multi-term
+ * queries.
+ */
+class PostingList {
+    static final int CHUNK_SIZE = 512;
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[][] chunks = {new long[4]};
+    private int[] counts = new int[1];
+    private int chunkCount = 1;
+    private int size = 0;
+
+    /**
+     * Adds {@code id}, keeping the list sorted.
+     *
+     * @param id the task id to add
+     */
+    void add(long id) {
+        int last = chunkCount - 1;
+        if (size == 0 || chunks[last][counts[last] - 1] < id) {
+            if (counts[last] >= CHUNK_SIZE) {
+                insertChunk(chunkCount, new long[CHUNK_SIZE], 0);
+                last++;
+            }
+            insertAt(last, counts[last], id);
+            return;
+        }
+        int c = chunkOf(id);
+        int at = Arrays.binarySearch(chunks[c], 0, counts[c], id);
+        if (at >= 0) {
+            return;
+        }
+        insertAt(c, -at - 1, id);
+        if (counts[c] >= 2 * CHUNK_SIZE) {
+            long[] upper = new long[CHUNK_SIZE];
+            System.arraycopy(chunks[c], CHUNK_SIZE, upper, 0, counts[c] - CHUNK_SIZE);
+            insertChunk(c + 1, upper, counts[c] - CHUNK_SIZE);
+            counts[c] = CHUNK_SIZE;
+        }
+    }
+
+    /**
+     * Removes {@code id} if present.
+     *
+     * @param id the task id to remove
+     */
+    void remove(long id) {
+        if (size == 0) {
+            return;
+        }
+        int c = chunkOf(id);
+        long[] chunk = chunks[c];
+        int at = Arrays.binarySearch(chunk, 0, counts[c], id);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(chunk, at + 1, chunk, at, counts[c] - at - 1);
+        counts[c]--;
+        size--;
+        if (counts[c] == 0 && chunkCount > 1) {
+            removeChunk(c);
+        } else if (counts[c] < CHUNK_SIZE / 4 && c + 1 < chunkCount
+                && counts[c] + counts[c + 1] <= CHUNK_SIZE) {
+            if (chunk.length < counts[c] + counts[c + 1]) {
+                chunks[c] = chunk = Arrays.copyOf(chunk, CHUNK_SIZE);
+            }
+            System.arraycopy(chunks[c + 1], 0, chunk, counts[c], counts[c + 1]);
+            counts[c] += counts[c + 1];
+            removeChunk(c + 1);
+        }
+    }
+
+    /**
+     * Returns whether {@code id} is in the list.
+     *
+     * @param id the task id to look for
+     * @return {@code true} if present
+     */
+    boolean contains(long id) {
+        if (size == 0) {
+            return false;
+        }
+        int c = chunkOf(id);
+        return Arrays.binarySearch(chunks[c], 0, counts[c], id) >= 0;
+    }
+
+    /**
+     * Visits the ids in ascending order, without copying them, until
+     * {@code visitor} returns {@code false}.
+     *
+     * @param visitor receives each id in turn
+     * @return {@code false} if {@code visitor} stopped the walk
+     */
+    boolean forEach(LongPredicate visitor) {
+        for (int c = 0; c < chunkCount; c++) {
+            long[] chunk = chunks[c];
+            for (int i = 0; i < counts[c]; i++) {
+                if (!visitor.test(chunk[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the ids in ascending order.
+     *
+     * @return the sorted ids
+     */
+    long[] toArray() {
+        if (size == 0) {
+            return EMPTY;
+        }
+        long[] out = new long[size];
+        int n = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            System.arraycopy(chunks[c], 0, out, n, counts[c]);
+            n += counts[c];
+        }
+        return out;
+    }
+
+    /**
+     * Returns the ids of the sorted array {@code candidates} that are also in
+     * this list. Costs a binary search per candidate, so it is much cheaper
+     * than {@link #intersect} when the candidates are few and this list is long.
+     *
+     * @param candidates sorted task ids
+     * @return the candidates present in this list
+     */
+    long[] retain(long[] candidates) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        long[] out = new long[candidates.length];
+        int n = 0;
+        int c = 0;
+        int lo = 0;
+        for (long id : candidates) {
+            while (c + 1 < chunkCount && chunks[c + 1][0] <= id) {
+                c++;
+                lo = 0;
+            }
+            int at = Arrays.binarySearch(chunks[c], lo, counts[c], id);
+            if (at >= 0) {
+                out[n++] = id;
+                lo = at + 1;
+            } else {
+                lo = -at - 1;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Returns the chunk whose range takes in {@code id}: the last chunk whose
+     * first id is at most {@code id}, or the first chunk if there is none.
+     */
+    private int chunkOf(long id) {
+        int lo = 0;
+        int hi = chunkCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunks[mid][0] <= id) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private void insertAt(int c, int at, long id) {
+        long[] chunk = chunks[c];
+        int n = counts[c];
+        if (n == chunk.length) {
+            chunks[c] = chunk = Arrays.copyOf(chunk, Math.min(n * 2, 2 * CHUNK_SIZE));
+        }
+        System.arraycopy(chunk, at, chunk, at + 1, n - at);
+        chunk[at] = id;
+        counts[c]++;
+        size++;
+    }
+
+    private void insertChunk(int at, long[] chunk, int count) {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            counts = Arrays.copyOf(counts, chunkCount * 2);
+        }
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        System.arraycopy(counts, at, counts, at + 1, chunkCount - at);
+        chunks[at] = chunk;
+        counts[at] = count;
+        chunkCount++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+        System.arraycopy(counts, at + 1, counts, at, chunkCount - at - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    /**
+     * Returns the ids present in both sorted arrays.
+     */
+    static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Returns the ids present in either sorted array.
+     */
+    static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
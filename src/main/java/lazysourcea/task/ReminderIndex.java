@@ -0,0 +1,156 @@
+package lazysourcea.task;
+
+import java.time.LocalDate;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Keeps the reminders of pending deadlines and events on a {@link TimingWheel}.
+ * <p>
+ * A deadline is due at the end of its day and an event when it starts;
+ * each is reminded a fixed lead time before that. Only reminders for tasks
+ * due within {@link #HORIZON} of now (plus the lead) are put on the wheel.
+ * As time moves on, the next stretch is looked up in the {@link DueIndex}
+ * and {@link EventIndex}, so the wheel stays small however far ahead the
+ * list reaches. Adding a task arms its reminder if it falls in the stretch
+ * already looked up, and deleting or marking it done disarms it; unmarking
+ * arms it again. All times are epoch minutes.
+ */
+class ReminderIndex implements TaskIndex {
+    /** How far ahead, in minutes, reminders are put on the wheel. */
+    static final long HORIZON = 24 * 60;
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final long deadlineLead;
+    private final long eventLead;
+    private final DueIndex due;
+    private final EventIndex events;
+    private final LongFunction<Task> resolver;
+    private final TimingWheel wheel;
+    // Deadlines due up to this epoch day, and events starting up to this
+    // minute, have been looked up; later ones are armed as time reaches them.
+    private long deadlinesLoaded;
+    private long eventsLoaded;
+
+    /**
+     * Creates an index with nothing armed yet; see {@link #load()}.
+     *
+     * @param now          the current minute
+     * @param deadlineLead minutes before a deadline's due time to remind
+     * @param eventLead    minutes before an event's start to remind
+     * @param due          the list's deadline index
+     * @param events       the list's event index
+     * @param resolver     looks up a task by id
+     */
+    ReminderIndex(long now, long deadlineLead, long eventLead, DueIndex due, EventIndex events,
+            LongFunction<Task> resolver) {
+        this.deadlineLead = deadlineLead;
+        this.eventLead = eventLead;
+        this.due = due;
+        this.events = events;
+        this.resolver = resolver;
+        this.wheel = new TimingWheel(now);
+        this.deadlinesLoaded = Math.floorDiv(now, MINUTES_PER_DAY) - 1;
+        this.eventsLoaded = now;
+    }
+
+    long deadlineLead() {
+        return deadlineLead;
+    }
+
+    long eventLead() {
+        return eventLead;
+    }
+
+    long now() {
+        return wheel.now();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task.isDone()) {
+            return;
+        }
+        long dueAt;
+        long lead;
+        if (task instanceof Deadline) {
+            long day = ((Deadline) task).getBy().toEpochDay();
+            if (day > deadlinesLoaded) {
+                return;
+            }
+            dueAt = (day + 1) * MINUTES_PER_DAY;
+            lead = deadlineLead;
+        } else if (task instanceof Event && ((Event) task).getStart() != null) {
+            dueAt = EventIndex.minutes(((Event) task).getStart());
+            if (dueAt > eventsLoaded) {
+                return;
+            }
+            lead = eventLead;
+        } else {
+            return;
+        }
+        if (dueAt > wheel.now()) {
+            wheel.schedule(task.id, dueAt - lead);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        wheel.cancel(task.id);
+    }
+
+    @Override
+    public void update(Task task) {
+        if (task.isDone()) {
+            wheel.cancel(task.id);
+        } else {
+            add(task);
+        }
+    }
+
+    /**
+     * Arms the reminders of the tasks due in the next stretch of time.
+     */
+    void load() {
+        load(wheel.now());
+    }
+
+    /**
+     * Moves time forward to minute {@code to}, arming what comes into reach
+     * and firing every reminder due by then. A long gap between calls fires
+     * everything it skipped over.
+     *
+     * @param to   the current minute
+     * @param fire receives the id of each task to remind about, earliest first
+     */
+    void advance(long to, LongConsumer fire) {
+        load(Math.max(to, wheel.now()));
+        wheel.advance(to, fire);
+    }
+
+    private void load(long from) {
+        long until = from + HORIZON;
+        long lastDay = Math.floorDiv(until + deadlineLead, MINUTES_PER_DAY) - 1;
+        if (lastDay > deadlinesLoaded) {
+            long[] ids = due.between(LocalDate.ofEpochDay(deadlinesLoaded + 1), LocalDate.ofEpochDay(lastDay));
+            deadlinesLoaded = lastDay;
+            arm(ids);
+        }
+        long lastStart = until + eventLead;
+        if (lastStart > eventsLoaded) {
+            long[] ids = events.startingBetween(eventsLoaded, lastStart);
+            eventsLoaded = lastStart;
+            arm(ids);
+        }
+    }
+
+    private void arm(long[] ids) {
+        for (long id : ids) {
+            Task t = resolver.apply(id);
+            if (t != null) {
+                add(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package lazysourcea.task;
+
+/**
+ * A {@link TaskIndex} that can answer single-term find queries.
+ */
+interface SearchIndex extends TaskIndex {
+
+    /**
+     * Returns the ids of the tasks matching {@code term}.
+     *
+     * @param term one search term, as typed by the user
+     * @return matching task ids in ascending order
+     */
+    long[] lookup(String term);
+}
@@ -0,0 +1,170 @@
+package lazysourcea.task;
+
+import java.util.BitSet;
+
+/**
+ * Membership bitsets for the done flag and the task kinds.
+ * <p>
+ * Bit {@code i} of each set stands for the task with id {@code i}. Ids are
+ * handed out densely from zero when the index is attached, so the sets stay
+ * about one bit per task and need no separate compression. Every change is a
+ * single bit flip plus a counter update, and counts are read from those
+ * counters rather than by scanning.
+ */
+class StatusIndex implements TaskIndex {
+    private final BitSet live = new BitSet();
+    private final BitSet done = new BitSet();
+    private final BitSet todos = new BitSet();
+    private final BitSet deadlines = new BitSet();
+    private final BitSet events = new BitSet();
+    private int liveCount;
+    private int doneCount;
+    private int todoCount;
+    private int deadlineCount;
+    private int eventCount;
+
+    @Override
+    public void add(Task task) {
+        int bit = bit(task);
+        live.set(bit);
+        liveCount++;
+        if (task.isDone()) {
+            done.set(bit);
+            doneCount++;
+        }
+        if (task instanceof Deadline) {
+            deadlines.set(bit);
+            deadlineCount++;
+        } else if (task instanceof Event) {
+            events.set(bit);
+            eventCount++;
+        } else {
+            todos.set(bit);
+            todoCount++;
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        int bit = bit(task);
+        if (!live.get(bit)) {
+            return;
+        }
+        live.clear(bit);
+        liveCount--;
+        if (done.get(bit)) {
+            done.clear(bit);
+            doneCount--;
+        }
+        if (deadlines.get(bit)) {
+            deadlines.clear(bit);
+            deadlineCount--;
+        } else if (events.get(bit)) {
+            events.clear(bit);
+            eventCount--;
+        } else {
+            todos.clear(bit);
+            todoCount--;
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        int bit = bit(task);
+        if (live.get(bit) && done.get(bit) != task.isDone()) {
+            done.flip(bit);
+            doneCount += task.isDone() ? 1 : -1;
+        }
+    }
+
+    /**
+     * Returns how many tasks match {@code filter}.
+     *
+     * @param filter the filter
+     * @return the count
+     */
+    int count(TaskList.Filter filter) {
+        switch (filter) {
+        case DONE:
+            return doneCount;
+        case PENDING:
+            return liveCount - doneCount;
+        case TODOS:
+            return todoCount;
+        case DEADLINES:
+            return deadlineCount;
+        case EVENTS:
+            return eventCount;
+        default:
+            return liveCount;
+        }
+    }
+
+    /**
+     * Returns the ids of the tasks matching {@code filter}.
+     *
+     * @param filter the filter
+     * @return matching task ids in ascending order
+     */
+    long[] ids(TaskList.Filter filter) {
+        BitSet set;
+        switch (filter) {
+        case DONE:
+            set = done;
+            break;
+        case PENDING:
+            set = (BitSet) live.clone();
+            set.andNot(done);
+            break;
+        case TODOS:
+            set = todos;
+            break;
+        case DEADLINES:
+            set = deadlines;
+            break;
+        case EVENTS:
+            set = events;
+            break;
+        default:
+            set = live;
+        }
+        long[] ids = new long[count(filter)];
+        int n = 0;
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            ids[n++] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns whether the task with {@code id} is in {@code filter}.
+     *
+     * @param filter the filter
+     * @param id     a task id
+     * @return whether the task matches
+     */
+    boolean matches(TaskList.Filter filter, long id) {
+        int bit = (int) id;
+        switch (filter) {
+        case DONE:
+            return done.get(bit);
+        case PENDING:
+            return live.get(bit) && !done.get(bit);
+        case TODOS:
+            return todos.get(bit);
+        case DEADLINES:
+            return deadlines.get(bit);
+        case EVENTS:
+            return events.get(bit);
+        default:
+            return live.get(bit);
+        }
+    }
+
+    private static int bit(Task task) {
+        if (task.id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("task id out of bitset range: " + task.id);
+        }
+        return (int) task.id;
+    }
+}
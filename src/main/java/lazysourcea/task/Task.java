@@ -11,6 +11,14 @@ package lazysourcea.task;
 public class Task {
     protected String description;
     protected boolean isDone;
+    private int version;
+
+    /**
+     * Identifier assigned by the owning {@link TaskList} once it starts
+     * indexing. Ids increase along the list, so a task's position can be
+     * recovered from its id by binary search.
+     */
+    long id = -1;
 
     /**
      * Creates a new {@code Task} with the given description.
@@ -23,6 +31,36 @@ public class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns the description of this task.
+     *
+     * @return the task description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns whether this task is completed.
+     *
+     * @return {@code true} if the task is done
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns a counter that changes whenever this task is modified.
+     * <p>
+     * Storage compares it with the value seen at the last save to decide
+     * whether the task has to be serialized again.
+     *
+     * @return the modification stamp of this task
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Returns the status icon for this task.
      *
@@ -36,14 +74,20 @@ public class Task {
      * Marks this task as completed.
      */
     public void markDone() {
-        this.isDone = true;
+        if (!isDone) {
+            this.isDone = true;
+            version++;
+        }
     }
 
     /**
      * Marks this task as not completed.
      */
     public void markNotDone() {
-        this.isDone = false;
+        if (isDone) {
+            this.isDone = false;
+            version++;
+        }
     }
 
     /**
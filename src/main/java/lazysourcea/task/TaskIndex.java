@@ -0,0 +1,36 @@
+package lazysourcea.task;
+
+/**
+ * A secondary index over the tasks of a {@link TaskList}.
+ * <p>
+ * Indexes refer to tasks by their {@link Task#id} rather than by position,
+ * so deleting a task does not invalidate the entries of the tasks after it.
+ * {@link TaskList} keeps every attached index up to date as tasks are added,
+ * removed and changed.
+ */
+interface TaskIndex {
+
+    /**
+     * Records a task that was added to the list.
+     *
+     * @param task the added task, with its id assigned
+     */
+    void add(Task task);
+
+    /**
+     * Forgets a task that was removed from the list.
+     *
+     * @param task the removed task
+     */
+    void remove(Task task);
+
+    /**
+     * Reflects a change to a task's state, such as its done flag.
+     *
+     * @param task the task after the change
+     */
+    default void update(Task task) {
+        remove(task);
+        add(task);
+    }
+}
@@ -1,25 +1,155 @@
 package lazysourcea.task;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 /**
  * Represents a mutable list of {@link Task} objects.
  * <p>
  * Provides methods to add, remove, retrieve, and display tasks.
  * The internal list is encapsulated and cannot be modified directly
- * outside of this class.
+ * outside of this class. Tasks are kept in a {@link ChunkedTaskList}, so
+ * getting, adding or removing a task by its number costs O(log n) however
+ * long the list grows.
+ * <p>
+ * Secondary indexes (see {@link TaskIndex}) are built the first time a query
+ * needs them and are then kept up to date on every mutation. Building them
+ * assigns each task an id; ids increase along the list, which is what lets
+ * an index report results by their current list numbers.
+ * <p>
+ * A list is confined to one thread unless {@link #enableConcurrentAccess()}
+ * is called. From then on every public method is safe to call from any
+ * thread: mutations take a write lock, and queries share a read lock, so
+ * a query always sees whole writes. A waiting writer holds back new
+ * queries, so a busy stream of them cannot shut it out. Only
+ * {@link #listSize()}, which reads a single field, skips the lock with an
+ * optimistic read.
+ * <p>
+ * The changes made by each outermost {@link #write(Supplier)} (or by a
+ * single mutating call) form one step that {@link #undo(Consumer)} can
+ * revert and {@link #redo(Consumer)} reapply; the latest
+ * {@value #HISTORY_LIMIT} steps are kept.
  */
 public class TaskList {
-    private final ArrayList<Task> items;
+    /**
+     * How {@link #find(String)} matches a term against descriptions.
+     */
+    public enum SearchMode {
+        /** A term matches words it is a prefix of. */
+        WORD,
+        /** A term matches anywhere in the description. */
+        SUBSTRING
+    }
+
+    /**
+     * A subset of tasks that can be counted and listed from bitsets.
+     */
+    public enum Filter {
+        DONE("done"), PENDING("pending"), TODOS("todo"), DEADLINES("deadline"), EVENTS("event");
+
+        private final String label;
+
+        Filter(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the word used for this subset in messages.
+         *
+         * @return a short label such as {@code "done"}
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * An order in which tasks can be listed, kept up to date as tasks change.
+     */
+    public enum Order {
+        /** Earliest deadline or typed event start first; tasks without a date last. */
+        DATE("date"),
+        /** Pending tasks first, then done ones. */
+        STATUS("status"),
+        /** Todos, then deadlines, then events. */
+        TYPE("type");
+
+        private final String label;
+
+        Order(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the word used for this order in commands and messages.
+         *
+         * @return a short label such as {@code "date"}
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    private final List<Task> items;
+    private final List<TaskIndex> indexes = new ArrayList<>();
+    private long nextId = -1;
+    private volatile SearchMode searchMode = SearchMode.SUBSTRING;
+    private KeywordIndex keywordIndex;
+    private TrigramIndex trigramIndex;
+    private FuzzyIndex fuzzyIndex;
+    private DueIndex dueIndex;
+    private EventIndex eventIndex;
+    private StatusIndex statusIndex;
+    private ReminderIndex reminderIndex;
+    private final EnumMap<Order, OrderIndex> orderIndexes = new EnumMap<>(Order.class);
+
+    // Lines built per read when streaming a whole list.
+    private static final int WINDOW = 256;
+
+    /** How many steps undo can go back. */
+    public static final int HISTORY_LIMIT = 100;
+
+    private volatile StampedLock lock;
+    // Held by a writer while it waits for the write lock, and passed through
+    // by readers before they take the read lock, so that a steady stream of
+    // readers cannot keep a writer out.
+    private final ReentrantLock gate = new ReentrantLock();
+    private volatile Thread writer;
+    private int writeDepth;
+    private final History history = new History(HISTORY_LIMIT);
+    private final ThreadLocal<int[]> readDepth = ThreadLocal.withInitial(() -> new int[1]);
 
     /**
      * Creates a new empty {@code TaskList}.
      */
     public TaskList() {
-        this.items = new ArrayList<>();
+        this.items = new ChunkedTaskList();
+    }
+
+    /**
+     * Creates a {@code TaskList} over an existing mutable list, without
+     * copying it. This lets storage hand over a lazily loaded list whose
+     * tasks are only materialized when they are accessed.
+     *
+     * @param backing the list to wrap; must not be modified elsewhere afterwards
+     */
+    public TaskList(List<Task> backing) {
+        this.items = backing;
     }
 
     /**
@@ -28,7 +158,83 @@ public class TaskList {
      * @param task the {@link Task} to be added
      */
     public void addTask(Task task) {
-        items.add(task);
+        write(() -> insert(items.size(), task));
+    }
+
+    /**
+     * Inserts {@code task} at {@code position}. A task appended gets the next
+     * id. One put back in the middle (by undo or redo) keeps its id, which
+     * still fits between its neighbours unless the ids were renumbered since
+     * it was removed; then every id is handed out again.
+     */
+    private Change insert(int position, Task task) {
+        boolean renumber = false;
+        if (nextId >= 0) {
+            if (position == items.size()) {
+                task.id = nextId++;
+            } else {
+                renumber = task.id < 0 || !fitsAt(position, task.id);
+            }
+        }
+        items.add(position, task);
+        if (renumber) {
+            reindex();
+        } else if (nextId >= 0) {
+            for (TaskIndex index : indexes) {
+                index.add(task);
+            }
+        }
+        return recorded(new Change(Change.Kind.ADD, position, task, task.isDone()));
+    }
+
+    private boolean fitsAt(int position, long id) {
+        return (position == 0 || items.get(position - 1).id < id) && items.get(position).id > id;
+    }
+
+    /**
+     * Drops every index and builds the same ones again, which assigns fresh ids.
+     */
+    private void reindex() {
+        boolean keyword = keywordIndex != null;
+        boolean trigram = trigramIndex != null;
+        boolean fuzzy = fuzzyIndex != null;
+        boolean due = dueIndex != null;
+        boolean event = eventIndex != null;
+        boolean status = statusIndex != null;
+        ReminderIndex reminders = reminderIndex;
+        List<Order> orders = new ArrayList<>(orderIndexes.keySet());
+        indexes.clear();
+        orderIndexes.clear();
+        nextId = -1;
+        keywordIndex = null;
+        trigramIndex = null;
+        fuzzyIndex = null;
+        dueIndex = null;
+        eventIndex = null;
+        statusIndex = null;
+        reminderIndex = null;
+        if (keyword) {
+            keywordIndex();
+        }
+        if (trigram) {
+            trigramIndex();
+        }
+        if (fuzzy) {
+            fuzzyIndex();
+        }
+        if (due) {
+            dueIndex();
+        }
+        if (event) {
+            eventIndex();
+        }
+        if (status) {
+            statusIndex();
+        }
+        orders.forEach(this::orderIndex);
+        if (reminders != null) {
+            enableReminders(reminders.now(), reminders.deadlineLead(), reminders.eventLead());
+        }
     }
 
     /**
@@ -37,8 +243,18 @@ public class TaskList {
      * @return the size of the task list
      */
     public int listSize() {
-        assert items.size() >= 0 : "size negative";
-        return items.size();
+        StampedLock l = lock;
+        if (l != null) {
+            long stamp = l.tryOptimisticRead();
+            int size = items.size();
+            if (stamp != 0 && l.validate(stamp)) {
+                return size;
+            }
+        }
+        return read(list -> {
+            assert items.size() >= 0 : "size negative";
+            return items.size();
+        });
     }
 
     /**
@@ -49,7 +265,7 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if {@code index} is invalid
      */
     public Task getTask(int index) throws IndexOutOfBoundsException {
-        return items.get(index);
+        return read(list -> items.get(index));
     }
 
     /**
@@ -60,14 +276,623 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if {@code index} is invalid
      */
     public Task removeTask(int index) throws IndexOutOfBoundsException {
-        return items.remove(index);
+        return write(() -> remove(index).task);
+    }
+
+    private Change remove(int position) {
+        Task removed = items.remove(position);
+        for (TaskIndex idx : indexes) {
+            idx.remove(removed);
+        }
+        return recorded(new Change(Change.Kind.REMOVE, position, removed, removed.isDone()));
+    }
+
+    /**
+     * Marks the task at the specified index as done.
+     *
+     * @param index zero-based index of the task
+     * @return the marked {@link Task}
+     * @throws IndexOutOfBoundsException if {@code index} is invalid
+     */
+    public Task markTask(int index) throws IndexOutOfBoundsException {
+        return write(() -> setDone(index, true).task);
+    }
+
+    /**
+     * Marks the task at the specified index as not done.
+     *
+     * @param index zero-based index of the task
+     * @return the unmarked {@link Task}
+     * @throws IndexOutOfBoundsException if {@code index} is invalid
+     */
+    public Task unmarkTask(int index) throws IndexOutOfBoundsException {
+        return write(() -> setDone(index, false).task);
+    }
+
+    /**
+     * Sets the done flag of the task at {@code position} and writes it back
+     * to the backing list, which matters for backends such as
+     * {@link ColumnarTaskList} that hand out copies, and refreshes the indexes.
+     */
+    private Change setDone(int position, boolean isDone) {
+        Task t = items.get(position);
+        boolean wasDone = t.isDone();
+        if (isDone) {
+            t.markDone();
+        } else {
+            t.markNotDone();
+        }
+        items.set(position, t);
+        for (TaskIndex index : indexes) {
+            index.update(t);
+        }
+        return recorded(new Change(isDone ? Change.Kind.MARK : Change.Kind.UNMARK, position, t, wasDone));
+    }
+
+    private Change recorded(Change change) {
+        history.record(change);
+        return change;
+    }
+
+    /**
+     * Reverts the latest step that has not been undone yet.
+     *
+     * @param applied told about each change as it is made, e.g. to journal it
+     * @return the changes made, in order; empty if there was nothing to undo
+     */
+    public List<Change> undo(Consumer<Change> applied) {
+        return write(() -> {
+            List<Change> changes = replay(history.popUndo(), true, applied);
+            if (!changes.isEmpty()) {
+                List<Change> step = new ArrayList<>(changes.size());
+                for (int k = changes.size() - 1; k >= 0; k--) {
+                    step.add(changes.get(k).inverse());
+                }
+                history.pushRedo(step);
+            }
+            return changes;
+        });
+    }
+
+    /**
+     * Reapplies the latest undone step. Any new change discards the steps
+     * that could still be redone.
+     *
+     * @param applied told about each change as it is made, e.g. to journal it
+     * @return the changes made, in order; empty if there was nothing to redo
+     */
+    public List<Change> redo(Consumer<Change> applied) {
+        return write(() -> {
+            List<Change> changes = replay(history.popRedo(), false, applied);
+            if (!changes.isEmpty()) {
+                history.pushUndo(changes);
+            }
+            return changes;
+        });
+    }
+
+    /**
+     * Applies {@code step} forwards, or its inverses from last to first,
+     * without recording the changes as a new step.
+     */
+    private List<Change> replay(List<Change> step, boolean backwards, Consumer<Change> applied) {
+        if (step == null) {
+            return List.of();
+        }
+        List<Change> changes = new ArrayList<>(step.size());
+        history.setRecording(false);
+        try {
+            for (int k = 0; k < step.size(); k++) {
+                Change c = backwards ? step.get(step.size() - 1 - k).inverse() : step.get(k);
+                Change done;
+                switch (c.kind) {
+                case ADD:
+                    done = insert(c.index, c.task);
+                    break;
+                case REMOVE:
+                    done = remove(c.index);
+                    break;
+                default:
+                    done = setDone(c.index, c.kind == Change.Kind.MARK);
+                }
+                changes.add(done);
+                applied.accept(done);
+            }
+        } finally {
+            history.setRecording(true);
+        }
+        return changes;
+    }
+
+    /**
+     * Returns how many tasks match {@code filter}, without scanning the list.
+     *
+     * @param filter the subset to count
+     * @return the number of matching tasks
+     */
+    public int count(Filter filter) {
+        return read(list -> statusIndex().count(filter));
+    }
+
+    /**
+     * Returns the positions of the tasks matching {@code filter}.
+     *
+     * @param filter the subset to list
+     * @return zero-based positions in ascending order
+     */
+    public int[] filter(Filter filter) {
+        return read(list -> positionsOf(statusIndex().ids(filter)));
+    }
+
+    /**
+     * Emits the tasks matching {@code filter} with their list numbers.
+     *
+     * @param filter the subset to list
+     * @param out    sink receiving each output line
+     */
+    public void listTasks(Filter filter, Consumer<String> out) {
+        listTasks(filter, null, out);
+    }
+
+    /**
+     * Emits the tasks matching {@code filter} in {@code order} with their list numbers.
+     *
+     * @param filter the subset to list, or {@code null} for every task
+     * @param order  the order to list them in, or {@code null} for list order
+     * @param out    sink receiving each output line
+     */
+    public void listTasks(Filter filter, Order order, Consumer<String> out) {
+        String kind = filter == null ? "" : filter.label() + " ";
+        if ((filter == null ? listSize() : count(filter)) == 0) {
+            out.accept(filter == null ? "(no tasks yet)" : "(no " + kind + "tasks)");
+            return;
+        }
+        out.accept("your " + kind + "tasks" + (order == null ? "" : " by " + order.label()) + ":");
+        stream(filter, order, ". ", out);
+    }
+
+    /**
+     * Returns the positions of all tasks in {@code order}.
+     * <p>
+     * The order is maintained as tasks change, so this is a walk of an
+     * already sorted structure rather than a sort.
+     *
+     * @param order the order
+     * @return zero-based positions, ties in list order
+     */
+    public int[] sorted(Order order) {
+        return read(list -> {
+            long[] ids = new long[items.size()];
+            int[] n = {0};
+            orderIndex(order).forEach(id -> {
+                ids[n[0]++] = id;
+                return true;
+            });
+            return positionsInOrder(Arrays.copyOf(ids, n[0]));
+        });
+    }
+
+    /**
+     * Emits one window of the numbered task lines, as {@code list} shows them.
+     * <p>
+     * Only the lines inside the window are built, so showing a page costs
+     * the same however long the list is (plus, for a filter, one int per
+     * matching task to find the window).
+     *
+     * @param filter the subset to list, or {@code null} for every task
+     * @param from   zero-based offset of the first line among the matching tasks
+     * @param count  the most lines to emit
+     * @param out    sink receiving each line
+     * @return the number of matching tasks, so callers can tell how many windows there are
+     */
+    public int listWindow(Filter filter, int from, int count, Consumer<String> out) {
+        return window(filter, null, from, count, ". ", out);
+    }
+
+    /**
+     * Emits one window of the numbered task lines in {@code order}.
+     * <p>
+     * The window is found by walking the maintained order from its start,
+     * so no sorting happens; the numbers shown are the tasks' list numbers.
+     *
+     * @param filter the subset to list, or {@code null} for every task
+     * @param order  the order to list in, or {@code null} for list order
+     * @param from   zero-based offset of the first line among the matching tasks
+     * @param count  the most lines to emit
+     * @param out    sink receiving each line
+     * @return the number of matching tasks
+     */
+    public int listWindow(Filter filter, Order order, int from, int count, Consumer<String> out) {
+        return window(filter, order, from, count, ". ", out);
+    }
+
+    private int window(Filter filter, Order order, int from, int count, String separator, Consumer<String> out) {
+        List<String> lines = new ArrayList<>(Math.max(0, Math.min(count, WINDOW)));
+        int total = read(list -> {
+            lines.clear();
+            if (order != null) {
+                return sortedWindow(filter, order, from, count, separator, lines);
+            }
+            int[] positions = filter == null ? null : filter(filter);
+            int n = positions == null ? items.size() : positions.length;
+            int end = (int) Math.min(n, (long) from + count);
+            for (int k = Math.max(0, from); k < end; k++) {
+                int i = positions == null ? k : positions[k];
+                lines.add((i + 1) + separator + items.get(i));
+            }
+            return n;
+        });
+        lines.forEach(out);
+        return total;
+    }
+
+    /**
+     * Emits every matching numbered line, a window at a time, so no more
+     * than one window of lines is held in memory. Each window is read
+     * consistently, but with concurrent access the list may change between
+     * windows.
+     */
+    private void stream(Filter filter, Order order, String separator, Consumer<String> out) {
+        for (int from = 0; from < window(filter, order, from, WINDOW, separator, out); from += WINDOW) {
+            // each call emits the next window
+        }
+    }
+
+    private int sortedWindow(Filter filter, Order order, int from, int count, String separator,
+            List<String> lines) {
+        StatusIndex status = filter == null ? null : statusIndex();
+        int[] seen = {0};
+        orderIndex(order).forEach(id -> {
+            if (status != null && !status.matches(filter, id)) {
+                return true;
+            }
+            int k = seen[0]++;
+            if (k >= from) {
+                int i = positionOf(id, 0);
+                lines.add((i + 1) + separator + items.get(i));
+            }
+            return lines.size() < count;
+        });
+        return filter == null ? items.size() : status.count(filter);
+    }
+
+    private OrderIndex orderIndex(Order order) {
+        OrderIndex index = orderIndexes.get(order);
+        if (index == null) {
+            index = attach(new OrderIndex(order));
+            orderIndexes.put(order, index);
+        }
+        return index;
+    }
+
+    private StatusIndex statusIndex() {
+        if (statusIndex == null) {
+            statusIndex = attach(new StatusIndex());
+        }
+        return statusIndex;
+    }
+
+    /**
+     * Sets how {@link #find(String)} matches terms. The default is
+     * {@link SearchMode#SUBSTRING}.
+     *
+     * @param mode the matching mode
+     */
+    public void setSearchMode(SearchMode mode) {
+        this.searchMode = mode;
+    }
+
+    /**
+     * Finds tasks whose description matches the query terms.
+     * <p>
+     * Terms separated by spaces must all match; groups of terms separated by
+     * an upper-case {@code OR} are alternatives. For example,
+     * {@code "read book OR pen"} matches tasks with both "read" and "book",
+     * or with "pen". Matching is case-insensitive; whether a term must occur
+     * anywhere or at the start of a word depends on the {@link SearchMode}.
+     *
+     * @param query the search query
+     * @return zero-based positions of the matching tasks in ascending order
+     */
+    public int[] find(String query) {
+        return read(list -> findIds(query));
+    }
+
+    private int[] findIds(String query) {
+        SearchIndex index = searchMode == SearchMode.WORD ? keywordIndex() : trigramIndex();
+        long[] ids = new long[0];
+        for (List<String> group : KeywordIndex.parseQuery(query)) {
+            long[] groupIds = null;
+            for (String term : group) {
+                long[] termIds = index.lookup(term);
+                groupIds = groupIds == null ? termIds : PostingList.intersect(groupIds, termIds);
+            }
+            ids = PostingList.union(ids, groupIds);
+        }
+        return positionsOf(ids);
+    }
+
+    /**
+     * Finds tasks whose description nearly matches the query terms, allowing
+     * for typos.
+     * <p>
+     * Terms combine as in {@link #find(String)}, but each matches whole words
+     * a few edits away: none for terms of up to two letters, one for up to
+     * five and two for longer ones. A task's score is the sum of the edits
+     * its best word for each term needs (the best group's, with {@code OR}).
+     * Words are looked up in a BK-tree over the description vocabulary, so
+     * a query only compares against part of it, never every description.
+     *
+     * @param query the search query
+     * @return zero-based positions of the matching tasks, closest first and
+     *         then in list order
+     */
+    public int[] findFuzzy(String query) {
+        return read(list -> {
+            FuzzyIndex index = fuzzyIndex();
+            Map<Long, Integer> best = new HashMap<>();
+            for (List<String> group : KeywordIndex.parseQuery(query)) {
+                Map<Long, Integer> scores = null;
+                for (String term : group) {
+                    for (String word : KeywordIndex.tokenize(term)) {
+                        Map<Long, Integer> hits = index.lookup(word, typosAllowed(word));
+                        if (scores == null) {
+                            scores = hits;
+                        } else {
+                            scores.keySet().retainAll(hits.keySet());
+                            scores.replaceAll((id, d) -> d + hits.get(id));
+                        }
+                    }
+                }
+                if (scores != null) {
+                    scores.forEach((id, d) -> best.merge(id, d, Math::min));
+                }
+            }
+            long[] ids = best.keySet().stream()
+                    .sorted(Comparator.comparing((Long id) -> best.get(id)).thenComparing(id -> id))
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            return positionsInOrder(ids);
+        });
+    }
+
+    private static int typosAllowed(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Finds deadlines due within a date range.
+     * <p>
+     * Answered from a date-ordered index in O(log n + k) for k matches.
+     *
+     * @param from first due date to include, or {@code null} to include everything due up to {@code to}
+     * @param to   last due date to include
+     * @return zero-based positions of the matching deadlines, earliest due first
+     */
+    public int[] dueBetween(LocalDate from, LocalDate to) {
+        return read(list -> positionsInOrder(dueIndex().between(from, to)));
+    }
+
+    /**
+     * Finds events whose typed times overlap a time range.
+     * <p>
+     * Answered from an interval tree in O(log n + k) for k matches. Events
+     * with free-form times never match.
+     *
+     * @param from start of the range
+     * @param to   end of the range (exclusive)
+     * @return zero-based positions of the matching events, earliest start first
+     */
+    public int[] eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return read(list -> positionsInOrder(eventIndex().overlapping(from, to)));
+    }
+
+    /**
+     * Finds the events in this list that clash with {@code event}.
+     *
+     * @param event an event, which may or may not be in this list already
+     * @return zero-based positions of other events overlapping it, earliest start first;
+     *         empty if {@code event} has free-form times
+     */
+    public int[] conflictsWith(Event event) {
+        if (event.getStart() == null) {
+            return new int[0];
+        }
+        return read(list -> {
+            int[] overlapping = eventsOverlapping(event.getStart(), event.getEnd());
+            int n = 0;
+            for (int pos : overlapping) {
+                if (items.get(pos).id != event.id) {
+                    overlapping[n++] = pos;
+                }
+            }
+            return n == overlapping.length ? overlapping : Arrays.copyOf(overlapping, n);
+        });
+    }
+
+    /**
+     * Maps task ids, in any order, to their current positions in that same order.
+     */
+    private int[] positionsInOrder(long[] ids) {
+        int[] positions = new int[ids.length];
+        int n = 0;
+        for (long id : ids) {
+            int pos = positionOf(id, 0);
+            if (pos >= 0) {
+                positions[n++] = pos;
+            }
+        }
+        return n == positions.length ? positions : Arrays.copyOf(positions, n);
+    }
+
+    /**
+     * Starts keeping reminders for the pending deadlines and events, to be
+     * collected with {@link #remind(LocalDateTime)}. A deadline is due at the
+     * end of its day and an event when it starts. Calling it again restarts
+     * the reminders with the new lead times.
+     *
+     * @param now          the current time; reminders already past are not
+     *                     given, except for tasks not yet due
+     * @param deadlineLead how long before a deadline is due to remind
+     * @param eventLead    how long before an event starts to remind
+     */
+    public void enableReminders(LocalDateTime now, Duration deadlineLead, Duration eventLead) {
+        write(() -> {
+            enableReminders(EventIndex.minutes(now), deadlineLead.toMinutes(), eventLead.toMinutes());
+            return null;
+        });
+    }
+
+    private void enableReminders(long now, long deadlineLead, long eventLead) {
+        indexes.remove(reminderIndex);
+        reminderIndex = attach(new ReminderIndex(now, deadlineLead, eventLead, dueIndex(), eventIndex(), id -> {
+            int pos = positionOf(id, 0);
+            return pos < 0 ? null : items.get(pos);
+        }));
+        reminderIndex.load();
+    }
+
+    /**
+     * Moves the reminders on to {@code now} and returns the tasks whose
+     * reminders have come due since the last call. Each reminder is given
+     * once; marking a task done or deleting it cancels its reminder, and
+     * unmarking it sets the reminder again.
+     * <p>
+     * Reminders sit on a timing wheel holding only what is due within a day
+     * or so, which is topped up from the date indexes as time passes, so a
+     * call costs little more than one step per minute elapsed plus the
+     * reminders it gives.
+     *
+     * @param now the current time
+     * @return zero-based positions of the tasks to remind about, earliest
+     *         reminder first; empty if reminders are not enabled
+     */
+    public int[] remind(LocalDateTime now) {
+        return write(() -> {
+            if (reminderIndex == null) {
+                return new int[0];
+            }
+            LongStream.Builder due = LongStream.builder();
+            reminderIndex.advance(EventIndex.minutes(now), due::add);
+            return positionsInOrder(due.build().toArray());
+        });
+    }
+
+    private DueIndex dueIndex() {
+        if (dueIndex == null) {
+            dueIndex = attach(new DueIndex());
+        }
+        return dueIndex;
+    }
+
+    private EventIndex eventIndex() {
+        if (eventIndex == null) {
+            eventIndex = attach(new EventIndex());
+        }
+        return eventIndex;
+    }
+
+    private FuzzyIndex fuzzyIndex() {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = attach(new FuzzyIndex());
+        }
+        return fuzzyIndex;
+    }
+
+    private KeywordIndex keywordIndex() {
+        if (keywordIndex == null) {
+            keywordIndex = attach(new KeywordIndex());
+        }
+        return keywordIndex;
+    }
+
+    private TrigramIndex trigramIndex() {
+        if (trigramIndex == null) {
+            trigramIndex = attach(new TrigramIndex(id -> {
+                int pos = positionOf(id, 0);
+                return pos < 0 ? null : items.get(pos);
+            }));
+        }
+        return trigramIndex;
+    }
+
+    /**
+     * Fills {@code index} with the current tasks and keeps it updated from
+     * now on. Assigns task ids first if no index existed yet.
+     */
+    private <T extends TaskIndex> T attach(T index) {
+        if (nextId < 0) {
+            nextId = 0;
+            for (int i = 0; i < items.size(); i++) {
+                Task t = items.get(i);
+                t.id = nextId++;
+                items.set(i, t);
+            }
+        }
+        for (Task t : items) {
+            index.add(t);
+        }
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Maps sorted task ids to their current zero-based positions.
+     */
+    private int[] positionsOf(long[] ids) {
+        int[] positions = new int[ids.length];
+        int n = 0;
+        int lo = 0;
+        for (long id : ids) {
+            int pos = positionOf(id, lo);
+            if (pos >= 0) {
+                positions[n++] = pos;
+                lo = pos + 1;
+            }
+        }
+        return n == positions.length ? positions : Arrays.copyOf(positions, n);
+    }
+
+    /**
+     * Returns the position of the task with {@code id}, searching from
+     * {@code from} onward, or {@code -1} if it is not in the list.
+     */
+    private int positionOf(long id, int from) {
+        if (from >= items.size()) {
+            return -1;
+        }
+        // Ids strictly increase along the list, so the task cannot be more
+        // than (id - id at from) places further on; with no deletions in
+        // between it is exactly there.
+        long first = items.get(from).id;
+        if (id < first) {
+            return -1;
+        }
+        int lo = from;
+        int hi = (int) Math.min(items.size() - 1, from + (id - first));
+        if (items.get(hi).id == id) {
+            return hi;
+        }
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midId = items.get(mid).id;
+            if (midId < id) {
+                lo = mid + 1;
+            } else if (midId > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
     }
 
     /**
      * Returns an unmodifiable view of the current task list.
      * <p>
      * This ensures external code cannot mutate the internal list
-     * while still being able to iterate over the tasks.
+     * while still being able to iterate over the tasks. Once concurrent
+     * access is enabled, only iterate it inside {@link #read(Function)}.
      *
      * @return an unmodifiable {@link List} of {@link Task} objects
      */
@@ -81,14 +906,12 @@ public class TaskList {
      * If the list is empty, a placeholder message is shown.
      */
     public void listTasks() {
-        if (items.isEmpty()) {
+        if (listSize() == 0) {
             System.out.println("(no tasks yet)");
-        } else {
-            System.out.println("your tasks:");
-            for (int i = 0; i < items.size(); i++) {
-                System.out.println((i + 1) + "." + items.get(i));
-            }
+            return;
         }
+        System.out.println("your tasks:");
+        stream(null, null, ".", System.out::println);
     }
 
     /**
@@ -102,9 +925,116 @@ public class TaskList {
             return;
         }
         out.accept("your tasks:");
-        for (int i = 0; i < listSize(); i++) {
-            out.accept(String.format("%d. %s", i + 1, getTask(i)));
+        stream(null, null, ". ", out);
+    }
+
+    /**
+     * Makes this list safe to share between threads.
+     * <p>
+     * Builds every secondary index up front (and so loads every task of a
+     * lazily loaded list), and stops the task list caching where its last
+     * lookup landed, because queries must not change any state once they
+     * may run concurrently. Calling it again has no effect.
+     */
+    public synchronized void enableConcurrentAccess() {
+        if (lock != null) {
+            return;
+        }
+        statusIndex();
+        dueIndex();
+        eventIndex();
+        keywordIndex();
+        trigramIndex();
+        fuzzyIndex();
+        for (Order order : Order.values()) {
+            orderIndex(order);
+        }
+        if (items instanceof ChunkedTaskList) {
+            ((ChunkedTaskList) items).share();
+        }
+        lock = new StampedLock();
+    }
+
+    /**
+     * Runs {@code query} against a consistent state of this list.
+     * <p>
+     * Without concurrent access this simply calls {@code query}. With it,
+     * {@code query} runs under the read lock, so it sees either none or all
+     * of each write, while other queries run alongside it. Calls nest, and a
+     * query may be run from inside {@link #write(Supplier)}. {@code query}
+     * must not modify this list; keep it short and emit any output it builds
+     * afterwards, since writers wait for it.
+     *
+     * @param query reads from this list and returns a result
+     * @param <T>   the result type
+     * @return the result of {@code query}
+     */
+    public <T> T read(Function<TaskList, T> query) {
+        StampedLock l = lock;
+        int[] depth = readDepth.get();
+        if (l == null || depth[0] > 0 || writer == Thread.currentThread()) {
+            return query.apply(this);
+        }
+        gate.lock();
+        long stamp;
+        try {
+            stamp = l.readLock();
+        } finally {
+            gate.unlock();
+        }
+        depth[0]++;
+        try {
+            return query.apply(this);
+        } finally {
+            depth[0]--;
+            l.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs {@code update} while holding the write lock, so that readers see
+     * either none or all of its changes, and records its changes as one undo
+     * step. Calls nest: the methods of this list that modify it can be used
+     * inside {@code update}, and so can {@link #read(Function)}.
+     *
+     * @param update modifies this list and returns a result
+     * @param <T>    the result type
+     * @return the result of {@code update}
+     */
+    public <T> T write(Supplier<T> update) {
+        StampedLock l = lock;
+        if (l == null || writer == Thread.currentThread()) {
+            return step(update);
+        }
+        gate.lock();
+        long stamp;
+        try {
+            stamp = l.writeLock();
+        } finally {
+            gate.unlock();
+        }
+        writer = Thread.currentThread();
+        try {
+            return step(update);
+        } finally {
+            writer = null;
+            l.unlockWrite(stamp);
         }
     }
 
+    /**
+     * Runs {@code update}, making the outermost call one undo step.
+     */
+    private <T> T step(Supplier<T> update) {
+        if (writeDepth++ == 0) {
+            history.begin();
+        }
+        try {
+            return update.get();
+        } finally {
+            if (--writeDepth == 0) {
+                history.end();
+            }
+        }
+    }
 }
@@ -0,0 +1,183 @@
+package lazysourcea.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * A hierarchical timing wheel of task ids keyed by the minute they are due.
+ * <p>
+ * Four levels of 64 slots each cover 64 minutes, about 68 hours, 182 days
+ * and 31 years. An id is put into the lowest level whose span reaches its
+ * minute, in the slot for that minute. Each tick of {@link #advance} fires
+ * the current slot of the lowest level. Whenever a higher level's slot
+ * comes round, its ids are moved down, closer to firing. Scheduling and
+ * cancelling cost O(1), and a tick costs O(1) plus the ids it moves or
+ * fires, however many ids are waiting.
+ * <p>
+ * Cancelled ids are only marked, and are dropped when their slot is reached.
+ */
+class TimingWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 4;
+
+    private static final class Entry {
+        final long id;
+        final long due;
+        boolean cancelled;
+
+        Entry(long id, long due) {
+            this.id = id;
+            this.due = due;
+        }
+    }
+
+    /**
+     * The ids waiting in one slot of one level.
+     */
+    private static final class Slot {
+        final List<Entry> entries = new ArrayList<>();
+    }
+
+    private final Slot[][] slots = new Slot[LEVELS][SLOTS];
+    private final HashMap<Long, Entry> byId = new HashMap<>();
+    private List<Entry> ready = new ArrayList<>();
+    private long now;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param now the current minute
+     */
+    TimingWheel(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Returns the minute the wheel has advanced to.
+     *
+     * @return the current minute
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Returns how many ids are waiting to fire.
+     *
+     * @return the number of scheduled ids
+     */
+    int size() {
+        return byId.size();
+    }
+
+    /**
+     * Schedules {@code id} to fire at minute {@code due}, replacing any
+     * earlier schedule for it. An id already due fires on the next advance.
+     * Minutes beyond the wheel's range are ignored.
+     *
+     * @param id  the task id
+     * @param due the minute to fire at
+     */
+    void schedule(long id, long due) {
+        cancel(id);
+        if (due - now >= 1L << (BITS * LEVELS)) {
+            return;
+        }
+        Entry e = new Entry(id, due);
+        byId.put(id, e);
+        place(e);
+    }
+
+    /**
+     * Stops {@code id} from firing.
+     *
+     * @param id the task id
+     */
+    void cancel(long id) {
+        Entry e = byId.remove(id);
+        if (e != null) {
+            e.cancelled = true;
+        }
+    }
+
+    /**
+     * Moves the wheel forward to minute {@code to}, firing every id due by then.
+     *
+     * @param to   the new current minute
+     * @param fire receives each id that fires, earliest first
+     */
+    void advance(long to, LongConsumer fire) {
+        fireAll(ready, fire);
+        while (now < to) {
+            if (byId.isEmpty()) {
+                now = to;
+                break;
+            }
+            now++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) == 0) {
+                    int slot = (int) ((now >>> (BITS * level)) & (SLOTS - 1));
+                    List<Entry> moving = take(level, slot);
+                    if (moving != null) {
+                        for (Entry e : moving) {
+                            if (!e.cancelled) {
+                                place(e);
+                            }
+                        }
+                    }
+                }
+            }
+            int slot = (int) (now & (SLOTS - 1));
+            List<Entry> due = take(0, slot);
+            if (due != null) {
+                fireAll(due, fire);
+            }
+            fireAll(ready, fire);
+        }
+    }
+
+    private void fireAll(List<Entry> entries, LongConsumer fire) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (entries == ready) {
+            ready = new ArrayList<>();
+        }
+        for (Entry e : entries) {
+            if (!e.cancelled) {
+                byId.remove(e.id);
+                e.cancelled = true;
+                fire.accept(e.id);
+            }
+        }
+    }
+
+    private void place(Entry e) {
+        long delta = e.due - now;
+        if (delta <= 0) {
+            ready.add(e);
+            return;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((e.due >>> (BITS * level)) & (SLOTS - 1));
+        if (slots[level][slot] == null) {
+            slots[level][slot] = new Slot();
+        }
+        slots[level][slot].entries.add(e);
+    }
+
+    /**
+     * Empties a slot and returns what it held, or {@code null} if nothing.
+     */
+    private List<Entry> take(int level, int slot) {
+        Slot s = slots[level][slot];
+        slots[level][slot] = null;
+        return s == null ? null : s.entries;
+    }
+}
@@ -0,0 +1,126 @@
+package lazysourcea.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Substring index over case-folded descriptions.
+ * <p>
+ * Every run of three characters (trigram) of each description maps to the
+ * ids of the tasks containing it. A term of three or more characters can
+ * only occur in tasks that contain all of its trigrams, so the smallest
+ * posting lists are intersected first to get a short candidate list, and
+ * only those candidates are checked with a real case-insensitive
+ * {@code contains}; a term of exactly three characters needs no check at
+ * all. Shorter terms have no trigram and are checked against every task.
+ */
+class TrigramIndex implements SearchIndex {
+    private final HashMap<Long, PostingList> postings = new HashMap<>();
+    private final PostingList all = new PostingList();
+    private final LongFunction<Task> resolver;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param resolver looks up a task in the list by its id, for verification
+     */
+    TrigramIndex(LongFunction<Task> resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void add(Task task) {
+        all.add(task.id);
+        for (long gram : trigrams(task.getDescription())) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(task.id);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        all.remove(task.id);
+        for (long gram : trigrams(task.getDescription())) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(task.id);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void update(Task task) {
+        // Only the description is indexed, and descriptions never change.
+    }
+
+    @Override
+    public long[] lookup(String term) {
+        long[] candidates;
+        Set<Long> grams = trigrams(term);
+        if (grams.isEmpty()) {
+            candidates = all.toArray();
+        } else {
+            List<PostingList> lists = new ArrayList<>();
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            candidates = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+                candidates = lists.get(i).retain(candidates);
+            }
+            if (term.length() == 3) {
+                return candidates;
+            }
+        }
+        long[] matches = new long[candidates.length];
+        int n = 0;
+        for (long id : candidates) {
+            Task t = resolver.apply(id);
+            if (t != null && containsIgnoreCase(t.getDescription(), term)) {
+                matches[n++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * Returns the distinct case-folded trigrams of {@code s}, each packed
+     * into a long as three 16-bit chars.
+     */
+    static Set<Long> trigrams(String s) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            long a = fold(s.charAt(i));
+            long b = fold(s.charAt(i + 1));
+            long c = fold(s.charAt(i + 2));
+            grams.add(a << 32 | b << 16 | c);
+        }
+        return grams;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean containsIgnoreCase(String haystack, String needle) {
+        int last = haystack.length() - needle.length();
+        for (int i = 0; i <= last; i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
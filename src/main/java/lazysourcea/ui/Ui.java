@@ -1,10 +1,16 @@
 package lazysourcea.ui;
 
+import lazysourcea.task.Change;
 import lazysourcea.task.Task;
 import lazysourcea.task.TaskList;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Simple UI helper for the lazysourcea application.
@@ -24,6 +30,7 @@ public class Ui {
     private static final int LEFT_W  = 40;  // width for the command column
     private static final int TOTAL_W = 100;  // overall text width (monospace)
     private static final int RIGHT_W = TOTAL_W - LEFT_W - 1; // -1 for the space between cols
+    private static final int MAX_LOAD_ERRORS_SHOWN = 5;
 
     private final Scanner scanner = new Scanner(System.in);
 
@@ -60,6 +67,23 @@ public class Ui {
         out.accept("enter help for available commands");
     }
 
+    /**
+     * Shows which lines of the save file could not be read, if any.
+     * @param errors one description per skipped line
+     */
+    public void showLoadErrors(List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        out.accept("heads up: skipped " + errors.size() + " unreadable line(s) in save file:");
+        for (int i = 0; i < Math.min(errors.size(), MAX_LOAD_ERRORS_SHOWN); i++) {
+            out.accept("  " + errors.get(i));
+        }
+        if (errors.size() > MAX_LOAD_ERRORS_SHOWN) {
+            out.accept("  ... and " + (errors.size() - MAX_LOAD_ERRORS_SHOWN) + " more");
+        }
+    }
+
     /**
      * Show the bye message.
      */
@@ -76,6 +100,15 @@ public class Ui {
         return scanner.nextLine().trim();
     }
 
+    /**
+     * Shows that recent changes could not be written to the save file.
+     * @param reason why the write failed
+     */
+    public void showSaveError(String reason) {
+        out.accept("oi.. " + reason + ". your latest changes are kept in memory"
+                + " and will be written again on the next save.");
+    }
+
     /**
      * Shows the error message for any wrongly formatted user input.
      * @param message the specific error message to display
@@ -95,7 +128,14 @@ public class Ui {
         out.accept("BASICS");
         row("- help [command]", "Show general help or details for a command");
         row("- list",           "Show all tasks");
-        row("- find <keyword>", "Search tasks by keyword (case-insensitive)");
+        row("- list <filter>",  "Show only done, pending, todos, deadlines or events");
+        row("- list by <order>", "Sort by date, status or type");
+        row("- list page <n> / next / all", "Show another page of the list, or all of it");
+        row("- stats",          "Count tasks by status and type");
+        row("- find <keyword>", "Search task descriptions for text (case-insensitive, OR for alternatives)");
+        row("- find ~<keyword>", "Search allowing for typos, closest matches first");
+        row("- due <date> [<date>]", "Show deadlines due by a date, or between two dates");
+        row("- on <date>", "Show events and deadlines on a date");
         row("- bye",            "Exit the program");
         out.accept("");
 
@@ -110,6 +150,9 @@ public class Ui {
         row("- mark <n>",   "Mark task n as done");
         row("- unmark <n>", "Mark task n as not done");
         row("- delete <n>", "Delete task n");
+        line("-- n may list several tasks and ranges, e.g., 4,9,12-20");
+        row("- undo", "Undo the last change");
+        row("- redo", "Redo the last undone change");
         out.accept("");
 
         out.accept("Tip: type 'help <command>' for examples, e.g., 'help deadline'.");
@@ -130,15 +173,46 @@ public class Ui {
                 out.accept("  help deadline");
                 break;
             case "list":
-                out.accept("list — show all tasks");
-                out.accept("Usage: list");
+                out.accept("list — show all tasks, or one kind of task, a page at a time");
+                out.accept("Usage: list [done|pending|todos|deadlines|events] [by date|status|type] [page <n>|all]");
+                out.accept("       list next");
+                out.accept("Examples:");
+                out.accept("  list");
+                out.accept("  list pending");
+                out.accept("  list page 3");
+                out.accept("  list next");
+                out.accept("  list by date");
+                out.accept("  list pending by date page 2");
+                out.accept("  list done all");
+                break;
+            case "stats":
+                out.accept("stats — count tasks by status and type");
+                out.accept("Usage: stats");
                 break;
             case "find":
                 out.accept("find — search tasks by keyword");
-                out.accept("Usage: find <keyword>");
+                out.accept("Usage: find <keyword> [<keyword>...] [OR <keyword>...]");
+                out.accept("All keywords must appear in the description; OR separates alternatives.");
                 out.accept("Examples:");
                 out.accept("  find book");
-                out.accept("  find meeting");
+                out.accept("  find return book");
+                out.accept("  find meeting OR camp");
+                out.accept("Start with ~ to allow for typos; closest matches are shown first:");
+                out.accept("  find ~retrun bok");
+                break;
+            case "due":
+                out.accept("due — show deadlines by due date");
+                out.accept("Usage: due <date>  or  due <from> <to>");
+                out.accept("One date shows everything due on or before it; two dates give an inclusive range.");
+                out.accept("Examples:");
+                out.accept("  due 2019-12-02");
+                out.accept("  due 1/12/2019 7/12/2019");
+                break;
+            case "on":
+                out.accept("on — show what is happening on a date");
+                out.accept("Usage: on <date>");
+                out.accept("Shows events that overlap the date and deadlines due that day.");
+                out.accept("Example: on 2019-12-02");
                 break;
             case "todo":
                 out.accept("todo — add a todo task");
@@ -159,21 +233,39 @@ public class Ui {
                 out.accept("Examples:");
                 out.accept("  event project meeting /from 10:00 /to 12:00");
                 out.accept("  event camp /from 2019-12-01 /to 2019-12-03");
+                out.accept("  event exam /from 2019-12-02 14:00 /to 2019-12-02 16:00");
+                out.accept("Times written as dates are checked for clashes with other events.");
                 break;
             case "mark":
                 out.accept("mark — mark a task as done");
-                out.accept("Usage: mark <n>");
-                out.accept("Example: mark 2");
+                out.accept("Usage: mark <n>[,<n>...]  (ranges like 1-5 allowed)");
+                out.accept("Examples:");
+                out.accept("  mark 2");
+                out.accept("  mark 1-3,7");
                 break;
             case "unmark":
                 out.accept("unmark — mark a task as not done");
-                out.accept("Usage: unmark <n>");
-                out.accept("Example: unmark 2");
+                out.accept("Usage: unmark <n>[,<n>...]  (ranges like 1-5 allowed)");
+                out.accept("Examples:");
+                out.accept("  unmark 2");
+                out.accept("  unmark 1-3,7");
                 break;
             case "delete":
                 out.accept("delete — remove a task");
-                out.accept("Usage: delete <n>");
-                out.accept("Example: delete 3");
+                out.accept("Usage: delete <n>[,<n>...]  (ranges like 1-5 allowed)");
+                out.accept("Examples:");
+                out.accept("  delete 3");
+                out.accept("  delete 4,9,12-20");
+                break;
+            case "undo":
+                out.accept("undo — revert the last command that changed tasks");
+                out.accept("Usage: undo");
+                out.accept("Repeat to go further back (up to " + TaskList.HISTORY_LIMIT + " commands).");
+                break;
+            case "redo":
+                out.accept("redo — reapply the last undone command");
+                out.accept("Usage: redo");
+                out.accept("Only possible until tasks are changed again.");
                 break;
             case "bye":
                 out.accept("bye — exit the program");
@@ -224,27 +316,231 @@ public class Ui {
         out.accept("task unmarked:\n " + task);
     }
 
+    /**
+     * Shows the tasks marked as done by one command.
+     * @param tasks the marked tasks
+     */
+    public void showMarked(List<Task> tasks) {
+        out.accept(tasks.size() + " tasks marked as done:");
+        for (Task t : tasks) {
+            out.accept("  " + t);
+        }
+    }
+
+    /**
+     * Shows the tasks unmarked by one command.
+     * @param tasks the unmarked tasks
+     */
+    public void showUnmarked(List<Task> tasks) {
+        out.accept(tasks.size() + " tasks unmarked:");
+        for (Task t : tasks) {
+            out.accept("  " + t);
+        }
+    }
+
+    /**
+     * Shows the tasks removed by one command.
+     * @param tasks the removed tasks
+     * @param size the size of the task list after deletion
+     */
+    public void showDeleted(List<Task> tasks, int size) {
+        out.accept(tasks.size() + " tasks removed:");
+        for (Task t : tasks) {
+            out.accept("  " + t);
+        }
+        out.accept("now you have " + size + " tasks in the list.");
+    }
+
     public void showList(TaskList taskList) {
         taskList.listTasks();
     }
 
+    /**
+     * Shows one page of the task list.
+     * @param label the subset listed (e.g. {@code "done"}), or {@code null} for all tasks
+     * @param order the order listed in (e.g. {@code "date"}), or {@code null} for list order
+     * @param lines the numbered task lines on this page
+     * @param page the one-based page number
+     * @param pages how many pages there are
+     * @param listOut sink receiving the list lines
+     */
+    public void showPage(String label, String order, List<String> lines, int page, int pages,
+            Consumer<String> listOut) {
+        String kind = label == null ? "" : label + " ";
+        String tasks = "your " + kind + "tasks" + (order == null ? "" : " by " + order);
+        if (pages == 0) {
+            listOut.accept(label == null ? "(no tasks yet)" : "(no " + kind + "tasks)");
+            return;
+        }
+        if (page > pages) {
+            listOut.accept("(no page " + page + ", there "
+                    + (pages == 1 ? "is only 1 page" : "are only " + pages + " pages") + ")");
+            return;
+        }
+        listOut.accept(pages == 1 ? tasks + ":" : tasks + " (page " + page + " of " + pages + "):");
+        lines.forEach(listOut);
+        if (page < pages) {
+            listOut.accept("type 'list next' for page " + (page + 1));
+        }
+    }
+
     /**
      * Shows the tasks that matches the keyword entered by the user.
+     * Matches are looked up in the task list's keyword index and shown with
+     * their list numbers, so they can be used directly with mark or delete.
      * @param taskList the list of tasks
-     * @param keyword the keyword to be matched to the tasks
+     * @param keyword the keyword(s) to be matched to the tasks
      */
     public void showFindResults(TaskList taskList, String keyword) {
         out.accept("ok found matches:");
-        int index = 1;
-        for (int i = 0; i < taskList.listSize(); i++) {
-            var t = taskList.getTask(i);
-            if (t.toString().toLowerCase().contains(keyword.toLowerCase())) {
-                out.accept(index + "." + t);
-                index++;
+        showNumbered(taskList, list -> list.find(keyword), "(no matching tasks found)");
+    }
+
+    /**
+     * Shows the tasks whose words nearly match the keyword(s), closest
+     * first, with their list numbers.
+     * @param taskList the list of tasks
+     * @param keyword the keyword(s), possibly misspelt
+     */
+    public void showFuzzyFindResults(TaskList taskList, String keyword) {
+        out.accept("ok closest matches:");
+        showNumbered(taskList, list -> list.findFuzzy(keyword), "(no matching tasks found)");
+    }
+
+    /**
+     * Shows the deadlines due within a date range, earliest first, with
+     * their list numbers.
+     * @param taskList the list of tasks
+     * @param from first due date to include, or {@code null} for no lower bound
+     * @param to last due date to include
+     */
+    public void showDueResults(TaskList taskList, LocalDate from, LocalDate to) {
+        out.accept("ok these are due:");
+        showNumbered(taskList, list -> list.dueBetween(from, to), "(nothing due)");
+    }
+
+    /**
+     * Shows the events overlapping a date and the deadlines due on it, in
+     * list order, with their list numbers.
+     * @param taskList the list of tasks
+     * @param date the date to show
+     */
+    public void showOnResults(TaskList taskList, LocalDate date) {
+        out.accept("ok on " + date + ":");
+        showNumbered(taskList, list -> {
+            int[] events = list.eventsOverlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+            int[] deadlines = list.dueBetween(date, date);
+            int[] matches = new int[events.length + deadlines.length];
+            System.arraycopy(events, 0, matches, 0, events.length);
+            System.arraycopy(deadlines, 0, matches, events.length, deadlines.length);
+            Arrays.sort(matches);
+            return matches;
+        }, "(nothing on)");
+    }
+
+    /**
+     * Shows how many tasks there are by status and by type.
+     * @param taskList the list of tasks
+     */
+    public void showStats(TaskList taskList) {
+        List<String> lines = taskList.read(list -> List.of(
+                list.listSize() + " task(s): "
+                        + list.count(TaskList.Filter.DONE) + " done, "
+                        + list.count(TaskList.Filter.PENDING) + " pending",
+                "  " + list.count(TaskList.Filter.TODOS) + " todo(s), "
+                        + list.count(TaskList.Filter.DEADLINES) + " deadline(s), "
+                        + list.count(TaskList.Filter.EVENTS) + " event(s)"));
+        lines.forEach(out);
+    }
+
+    /**
+     * Warns about events that clash with one just added.
+     * @param taskList the list of tasks
+     * @param conflicts positions of the clashing events
+     */
+    public void showConflicts(TaskList taskList, int[] conflicts) {
+        if (conflicts.length == 0) {
+            return;
+        }
+        out.accept("heads up, this clashes with:");
+        showNumbered(taskList, list -> conflicts, null);
+    }
+
+    /**
+     * Reminds about deadlines and events coming up soon.
+     * @param taskList the list of tasks
+     * @param due positions of the tasks whose reminders are due
+     */
+    public void showReminders(TaskList taskList, int[] due) {
+        if (due.length == 0) {
+            return;
+        }
+        out.accept("reminder, coming up soon:");
+        showNumbered(taskList, list -> due, null);
+    }
+
+    /**
+     * Shows the tasks at the positions {@code query} returns, with their
+     * list numbers, or {@code empty} if there are none. The positions and
+     * the tasks are read together, so the numbers shown match the tasks
+     * even while other threads change the list.
+     */
+    private void showNumbered(TaskList taskList, Function<TaskList, int[]> query, String empty) {
+        List<String> lines = taskList.read(list -> {
+            int[] positions = query.apply(list);
+            List<String> result = new ArrayList<>(positions.length);
+            for (int i : positions) {
+                result.add((i + 1) + "." + list.getTask(i));
             }
+            return result;
+        });
+        lines.forEach(out);
+        if (lines.isEmpty() && empty != null) {
+            out.accept(empty);
+        }
+    }
+
+    /**
+     * Shows what an undo changed.
+     * @param changes the changes made, in order; empty if there was nothing to undo
+     */
+    public void showUndone(List<Change> changes) {
+        if (changes.isEmpty()) {
+            out.accept("nothing to undo lah.");
+            return;
         }
-        if (index == 1) {
-            out.accept("(no matching tasks found)");
+        out.accept("ok undone:");
+        showChanges(changes);
+    }
+
+    /**
+     * Shows what a redo changed.
+     * @param changes the changes made, in order; empty if there was nothing to redo
+     */
+    public void showRedone(List<Change> changes) {
+        if (changes.isEmpty()) {
+            out.accept("nothing to redo lah.");
+            return;
+        }
+        out.accept("ok redone:");
+        showChanges(changes);
+    }
+
+    private void showChanges(List<Change> changes) {
+        for (Change c : changes) {
+            switch (c.kind) {
+            case ADD:
+                out.accept("  put back " + (c.index + 1) + "." + c.task);
+                break;
+            case REMOVE:
+                out.accept("  removed " + c.task);
+                break;
+            case MARK:
+                out.accept("  marked " + (c.index + 1) + "." + c.task);
+                break;
+            default:
+                out.accept("  unmarked " + (c.index + 1) + "." + c.task);
+            }
         }
     }
 
@@ -273,8 +569,8 @@ public class Ui {
      * @param width the maximum line width (in characters), expected {@code >= 1}
      * @return a list of wrapped lines in display order, each {@code <= width}
      */
-    private static java.util.List<String> wrapToWidth(String s, int width) {
-        java.util.ArrayList<String> lines = new java.util.ArrayList<>();
+    private static List<String> wrapToWidth(String s, int width) {
+        ArrayList<String> lines = new ArrayList<>();
         if (s == null) { lines.add(""); return lines; }
         s = s.trim();
         if (s.isEmpty()) { lines.add(""); return lines; }
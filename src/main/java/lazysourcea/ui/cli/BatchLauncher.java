@@ -0,0 +1,68 @@
+package lazysourcea.ui.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lazysourcea.lazysourcea;
+
+/**
+ * Headless entry point that executes a script of commands in one pass.
+ * <p>
+ * Usage: {@code BatchLauncher [--data <dir>/<file>] [--commit-every <n>] [<script> | -]}.
+ * Commands are read from {@code script}, or from standard input if it is
+ * omitted or {@code -}, and replies go to standard output. Storage is
+ * committed every {@code n} commands (default: only at the end).
+ */
+public class BatchLauncher {
+    private static final String DEFAULT_DATA = "data/lazysourcea.txt";
+
+    public static void main(String[] args) {
+        Path data = Paths.get(DEFAULT_DATA);
+        int commitEvery = 0;
+        String script = "-";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--data":
+                    data = Paths.get(args[++i]);
+                    break;
+                case "--commit-every":
+                    commitEvery = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    script = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println("usage: BatchLauncher [--data <dir>/<file>] [--commit-every <n>] [<script> | -]");
+            System.exit(2);
+        }
+
+        Path dir = data.getParent();
+        lazysourcea core = new lazysourcea(dir == null ? "" : dir.toString(), data.getFileName().toString());
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = "-".equals(script)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            core.runBatch(in, out, commitEvery);
+        } catch (IOException e) {
+            System.err.println("batch failed: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            try {
+                core.shutdown();
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package lazysourcea.ui.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lazysourcea.ui.server.SessionServer;
+
+/**
+ * Entry point that serves lazysourcea over the network.
+ * <p>
+ * Usage: {@code ServerLauncher [--port <n>] [--data <dir>] [--workers <n>] [--flush-window <ms>]}.
+ * Listens on the loopback interface (default port 4040) and keeps each
+ * user's tasks in {@code <dir>/<user>.txt} (default directory {@code data}).
+ * Runs until the process is stopped, then flushes every user's storage.
+ */
+public class ServerLauncher {
+    public static void main(String[] args) {
+        int port = 4040;
+        Path data = Paths.get("data");
+        int workers = Runtime.getRuntime().availableProcessors();
+        long flushWindow = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--data":
+                    data = Paths.get(args[++i]);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "--flush-window":
+                    flushWindow = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("usage: ServerLauncher [--port <n>] [--data <dir>] [--workers <n>]"
+                    + " [--flush-window <ms>]");
+            System.exit(2);
+        }
+
+        SessionServer server;
+        try {
+            server = new SessionServer(data, port, workers, flushWindow);
+        } catch (IOException e) {
+            System.err.println("cannot listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("lazysourcea listening on 127.0.0.1:" + server.port());
+    }
+}
@@ -3,6 +3,7 @@ package lazysourcea.ui.javafx;
 
 import javafx.scene.image.Image;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -11,12 +12,14 @@ import javafx.stage.Stage;
 import lazysourcea.lazysourcea;
 
 public class MainApp extends Application {
+    private static final long FLUSH_WINDOW_MILLIS = 500;
+
     private lazysourcea core;
 
     @Override
     public void start(Stage stage) {
         try {
-            core = new lazysourcea("data", "lazysourcea.txt");
+            core = new lazysourcea("data", "lazysourcea.txt", FLUSH_WINDOW_MILLIS);
             FXMLLoader loader = new FXMLLoader(MainApp.class.getResource("/view/MainWindow.fxml"));
             AnchorPane root = loader.load();
             loader.<MainWindow>getController().setCore(core);
@@ -40,4 +43,15 @@ public class MainApp extends Application {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (core != null) {
+            try {
+                core.shutdown();
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            }
+        }
+    }
 }
@@ -7,10 +7,14 @@ import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
+import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.util.Duration;
 
+import java.time.LocalDateTime;
+
 import lazysourcea.lazysourcea;
 
 public class MainWindow extends AnchorPane {
@@ -38,6 +42,18 @@ public class MainWindow extends AnchorPane {
         dialogContainer.getChildren().add(
                 DialogBox.getDukeDialog(core.getWelcomeMessage(), dukeImage)
         );
+        showReminders();
+        // Runs on the FX thread, like user input, so the two never overlap.
+        Timeline reminders = new Timeline(new KeyFrame(Duration.minutes(1), e -> showReminders()));
+        reminders.setCycleCount(Timeline.INDEFINITE);
+        reminders.play();
+    }
+
+    private void showReminders() {
+        String text = core.getReminders(LocalDateTime.now());
+        if (!text.isEmpty()) {
+            dialogContainer.getChildren().add(DialogBox.getDukeDialog(text, dukeImage));
+        }
     }
 
     @FXML
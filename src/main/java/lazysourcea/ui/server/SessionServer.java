@@ -0,0 +1,472 @@
+package lazysourcea.ui.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lazysourcea.lazysourcea;
+import lazysourcea.logic.ListCursor;
+import lazysourcea.parser.Parser;
+
+/**
+ * Serves lazysourcea to many clients at once over a line protocol.
+ * <p>
+ * A client opens a TCP connection and first sends {@code user <name>}; its
+ * tasks are kept in {@code <name>.txt} under the data directory, apart
+ * from every other user's. Names are not case-sensitive. After that, each line is one command, answered
+ * exactly as the JavaFX window would answer it. Every reply (including the
+ * greeting on connect) is a block of lines ended by a line holding a single
+ * {@code .}; reply lines that start with {@code .} get one more in front.
+ * {@code bye} is answered and then the connection is closed. A line longer
+ * than 8 KB is not run at all but answered with an error.
+ * <p>
+ * One selector thread does all socket I/O and a small worker pool runs the
+ * commands, so an idle session costs a buffer and a few objects rather
+ * than a thread. A session's commands run one after another in the order
+ * they arrived. Sessions of the same user share one core, whose task list
+ * is switched to concurrent access so their commands do not corrupt it.
+ * A core is loaded when the first of its user's sessions logs in, and
+ * flushed and closed once the last one ends, so the server only holds the
+ * lists of users who are connected. All their storages share one flush
+ * thread.
+ */
+public class SessionServer implements Closeable {
+    private static final Pattern LOGIN = Pattern.compile("user\\s+([A-Za-z0-9_-]{1,32})");
+    private static final String GREETING = "hi! log in with: user <name>";
+    private static final int READ_BUFFER = 4096;
+    private static final int MAX_LINE = 8192;
+    // Queued in place of a line longer than MAX_LINE, and after the last
+    // line of a closed connection. Lines are split at newlines and stripped,
+    // so no real line can be equal to either.
+    private static final String TOO_LONG = "\n";
+    private static final String GONE = "\r";
+
+    private final Path dataDir;
+    private final long flushWindowMillis;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Thread loop;
+    private final Parser parser = new Parser();
+    private final ConcurrentHashMap<String, Core> cores = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Session> writable = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER);
+    private final AtomicInteger sessions = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Starts listening on the loopback interface.
+     *
+     * @param dataDir           directory holding one data file per user
+     * @param port              TCP port, or {@code 0} for any free port
+     * @param workerThreads     number of threads running commands
+     * @param flushWindowMillis durability window of each user's storage;
+     *                          {@code 0} writes every mutation synchronously
+     * @throws IOException if the port cannot be opened
+     */
+    public SessionServer(Path dataDir, int port, int workerThreads, long flushWindowMillis) throws IOException {
+        this.dataDir = dataDir;
+        this.flushWindowMillis = flushWindowMillis;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.loop = new Thread(this::runLoop, "lazysourcea-server");
+        loop.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the bound TCP port
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Returns how many connections are currently open.
+     *
+     * @return the number of open sessions
+     */
+    public int sessionCount() {
+        return sessions.get();
+    }
+
+    /**
+     * Returns how many users have their task list open, i.e. have at least
+     * one logged-in session.
+     *
+     * @return the number of open cores
+     */
+    public int coreCount() {
+        return cores.size();
+    }
+
+    /**
+     * Stops accepting and serving, closes every connection and flushes and
+     * closes every user's storage.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+        for (Core c : cores.values()) {
+            synchronized (c) {
+                c.closed = true;
+                if (c.app != null) {
+                    shutdown(c);
+                }
+            }
+        }
+        cores.clear();
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Session pending;
+                while ((pending = writable.poll()) != null) {
+                    flush(pending);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Session s = (Session) key.attachment();
+                    if (key.isReadable()) {
+                        read(s);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(s);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("server stopped: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            Session s = new Session(channel);
+            s.key = channel.register(selector, SelectionKey.OP_READ, s);
+            sessions.incrementAndGet();
+            s.send(GREETING, false);
+        }
+    }
+
+    private void read(Session s) {
+        readBuffer.clear();
+        int n;
+        try {
+            n = s.channel.read(readBuffer);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            close(s);
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                s.received(s.overlong ? TOO_LONG : s.partial.toString(StandardCharsets.UTF_8).strip());
+                s.partial.reset();
+                s.overlong = false;
+            } else if (s.partial.size() < MAX_LINE) {
+                s.partial.write(b);
+            } else {
+                s.overlong = true;
+            }
+        }
+    }
+
+    /**
+     * Writes as much queued output of {@code s} as the socket takes, and asks
+     * to be told when it can take more if anything is left.
+     */
+    private void flush(Session s) {
+        if (!s.key.isValid()) {
+            return;
+        }
+        boolean drained;
+        boolean closing;
+        synchronized (s) {
+            try {
+                while (!s.out.isEmpty()) {
+                    ByteBuffer head = s.out.peek();
+                    s.channel.write(head);
+                    if (head.hasRemaining()) {
+                        break;
+                    }
+                    s.out.poll();
+                }
+            } catch (IOException e) {
+                s.out.clear();
+                s.closing = true;
+            }
+            drained = s.out.isEmpty();
+            closing = s.closing;
+        }
+        if (drained && closing) {
+            close(s);
+        } else {
+            s.key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void close(Session s) {
+        if (s.key.isValid()) {
+            closeQuietly(s.key);
+            sessions.decrementAndGet();
+            s.disconnected();
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Joins a session to {@code user}'s core, loading it if no other session
+     * has it open. Only sessions of the same user wait for the load.
+     */
+    private Core join(String user) {
+        while (true) {
+            Core c = cores.computeIfAbsent(user, Core::new);
+            synchronized (c) {
+                if (c.closed) {
+                    continue;
+                }
+                if (c.app == null) {
+                    c.app = new lazysourcea(dataDir.toString(), user + ".txt", flushWindowMillis);
+                    c.app.enableConcurrentAccess();
+                }
+                c.sessions++;
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Takes a session off its core, and flushes and closes the core if that
+     * was its last session. The core leaves the map only once it is closed,
+     * so a new login waits for its file to be complete before loading it.
+     */
+    private void leave(Core c) {
+        synchronized (c) {
+            if (--c.sessions > 0 || c.closed) {
+                return;
+            }
+            if (!shutdown(c)) {
+                // Keep the core, and the changes it could not write, for the
+                // user's next session or the server's close to try again.
+                return;
+            }
+            c.closed = true;
+            cores.remove(c.user, c);
+        }
+    }
+
+    private static boolean shutdown(Core c) {
+        try {
+            c.app.shutdown();
+            return true;
+        } catch (UncheckedIOException e) {
+            System.err.println(c.user + ": " + e.getMessage() + ": " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * One user's core and the number of sessions using it.
+     */
+    private static final class Core {
+        final String user;
+
+        // Guarded by this object.
+        lazysourcea app;
+        int sessions;
+        boolean closed;
+
+        Core(String user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * One connection. Its input is parsed on the selector thread and its
+     * commands run on a worker, one at a time.
+     */
+    private final class Session implements Runnable {
+        final SocketChannel channel;
+        final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        boolean overlong;
+        SelectionKey key;
+
+        // Guarded by this session.
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closing;
+
+        // Only used by the worker running this session.
+        private Core core;
+        private final ListCursor cursor = new ListCursor();
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Called once the connection is closed; the session leaves its core
+         * after running whatever lines arrived before.
+         */
+        void disconnected() {
+            synchronized (this) {
+                closing = true;
+                lines.add(GONE);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            workers.execute(this);
+        }
+
+        void received(String line) {
+            synchronized (this) {
+                if (closing || line.isEmpty()) {
+                    return;
+                }
+                lines.add(line);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            workers.execute(this);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                String line;
+                synchronized (this) {
+                    line = lines.poll();
+                    if (line == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                handle(line);
+            }
+        }
+
+        private void handle(String line) {
+            if (line.equals(GONE)) {
+                if (core != null) {
+                    leave(core);
+                    core = null;
+                }
+                return;
+            }
+            if (line.equals(TOO_LONG)) {
+                send("oi.. that line is too long, keep it under " + MAX_LINE + " bytes. nothing was done.", false);
+                return;
+            }
+            if (core == null) {
+                Matcher m = LOGIN.matcher(line);
+                if (m.matches()) {
+                    // Lower-cased so that "Alice" and "alice" share one core and
+                    // one file, also on case-insensitive filesystems.
+                    core = join(m.group(1).toLowerCase(Locale.ROOT));
+                    send(core.app.getWelcomeMessage(), false);
+                } else {
+                    send("who are you? log in with: user <name> (letters, digits, _ or -)", false);
+                }
+                return;
+            }
+            String reply = core.app.getResponse(line, cursor);
+            send(reply, parser.parse(line).type == Parser.CommandType.BYE);
+        }
+
+        /**
+         * Queues {@code reply} as one block and has the selector thread write
+         * it, closing the connection afterwards if {@code last}.
+         */
+        void send(String reply, boolean last) {
+            StringBuilder sb = new StringBuilder(reply.length() + 8);
+            for (String l : reply.split("\\R", -1)) {
+                if (l.startsWith(".")) {
+                    sb.append('.');
+                }
+                sb.append(l).append('\n');
+            }
+            sb.append(".\n");
+            synchronized (this) {
+                out.add(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+                if (last) {
+                    closing = true;
+                    lines.clear();
+                }
+            }
+            writable.add(this);
+            selector.wakeup();
+        }
+    }
+}
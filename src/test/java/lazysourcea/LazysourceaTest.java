@@ -0,0 +1,132 @@
+package lazysourcea;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lazysourcea.storage.Storage;
+import lazysourcea.task.Task;
+import lazysourcea.task.Todo;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazysourceaTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void runBatch_executesScriptAndCommitsAtEnd() throws Exception {
+        lazysourcea core = new lazysourcea(tempDir.toString(), "tasks.txt");
+        String script = "todo read book\n\ndeadline return book /by 2019-12-02\nmark 1\nbye\ntodo ignored\n";
+        StringWriter out = new StringWriter();
+
+        int executed = core.runBatch(new BufferedReader(new StringReader(script)), out, 0);
+
+        assertEquals(4, executed);
+        assertTrue(core.isExit());
+        assertTrue(out.toString().contains("now you have 2 task(s) in the list."));
+
+        lazysourcea reopened = new lazysourcea(tempDir.toString(), "tasks.txt");
+        String list = reopened.getResponse("list");
+        assertTrue(list.contains("1. [T][X] read book"));
+        assertTrue(list.contains("2. [D][ ] return book (by: Dec 2 2019)"));
+    }
+
+    @Test
+    void getResponse_reportsRecordsFoundUnreadableAfterStartup() throws Exception {
+        Storage storage = new Storage(tempDir.toString(), "tasks.bin");
+        storage.setFormat(Storage.Format.BINARY);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo(String.format("t%04d", i)));
+        }
+        storage.save(tasks);
+        Path file = tempDir.resolve("tasks.bin");
+        byte[] data = Files.readAllBytes(file);
+        // Each record is type, flags, description length, then the text.
+        data[new String(data, StandardCharsets.ISO_8859_1).indexOf("t2500") - 6] = 'Z';
+        Files.write(file, data);
+
+        lazysourcea core = new lazysourcea(tempDir.toString(), "tasks.bin");
+        assertFalse(core.getWelcomeMessage().contains("heads up"));
+        assertTrue(core.getResponse("find t25").contains("heads up"));
+        assertFalse(core.getResponse("find t25").contains("heads up"));
+    }
+
+    @Test
+    void bulkCommands_applyRangesAndPersistInOneJournalWrite() throws Exception {
+        lazysourcea core = new lazysourcea(tempDir.toString(), "tasks.txt");
+        for (int i = 1; i <= 8; i++) {
+            core.getResponse("todo task " + i);
+        }
+        assertTrue(core.getResponse("mark 1-3,5").contains("4 tasks marked as done"));
+        assertTrue(core.getResponse("delete 2, 4-5,8").contains("now you have 4 tasks"));
+
+        lazysourcea reopened = new lazysourcea(tempDir.toString(), "tasks.txt");
+        String list = reopened.getResponse("list");
+        assertTrue(list.contains("1. [T][X] task 1"));
+        assertTrue(list.contains("2. [T][X] task 3"));
+        assertTrue(list.contains("3. [T][ ] task 6"));
+        assertTrue(list.contains("4. [T][ ] task 7"));
+        assertTrue(core.getResponse("delete 2-1").contains("out of range"));
+    }
+
+    @Test
+    void undoRedo_revertWholeCommandsAndPersist() throws Exception {
+        lazysourcea core = new lazysourcea(tempDir.toString(), "tasks.txt");
+        core.getResponse("todo a");
+        core.getResponse("todo b");
+        core.getResponse("todo c");
+        core.getResponse("mark 1-3");
+        core.getResponse("delete 2");
+
+        assertTrue(core.getResponse("undo").contains("put back 2.[T][X] b"));
+        assertTrue(core.getResponse("undo").contains("unmarked 3.[T][ ] c"));
+        core.getResponse("redo");
+        core.shutdown();
+
+        lazysourcea reopened = new lazysourcea(tempDir.toString(), "tasks.txt");
+        String list = reopened.getResponse("list");
+        assertTrue(list.contains("1. [T][X] a"));
+        assertTrue(list.contains("2. [T][X] b"));
+        assertTrue(list.contains("3. [T][X] c"));
+        assertTrue(reopened.getResponse("undo").startsWith("nothing to undo"));
+    }
+
+    @Test
+    void list_showsOnePageAtATimeUnlessStreamed() throws Exception {
+        lazysourcea core = new lazysourcea(tempDir.toString(), "tasks.txt");
+        StringBuilder script = new StringBuilder();
+        for (int i = 1; i <= 120; i++) {
+            script.append("todo task ").append(i).append('\n');
+        }
+        core.runBatch(new BufferedReader(new StringReader(script + "list\n")), new StringWriter(), 0);
+
+        String first = core.getResponse("list");
+        assertTrue(first.startsWith("your tasks (page 1 of 3):"));
+        assertTrue(first.contains("50. [T][ ] task 50"));
+        assertFalse(first.contains("51."));
+        assertTrue(first.endsWith("type 'list next' for page 2"));
+        assertTrue(core.getResponse("list next").contains("51. [T][ ] task 51"));
+        String last = core.getResponse("list page 3");
+        assertTrue(last.contains("120. [T][ ] task 120"));
+        assertFalse(last.contains("list next"));
+        assertTrue(core.getResponse("list page 4").startsWith("(no page 4"));
+
+        StringWriter all = new StringWriter();
+        core.runBatch(new BufferedReader(new StringReader("list\n")), all, 0);
+        assertTrue(all.toString().contains("1. [T][ ] task 1"));
+        assertTrue(all.toString().contains("120. [T][ ] task 120"));
+    }
+}
@@ -2,9 +2,17 @@ package lazysourcea.parser;
 
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 
+import lazysourcea.task.DateParser;
+import lazysourcea.task.TaskList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParserTest {
 
@@ -35,4 +43,109 @@ public class ParserTest {
         assertThrows(IndexOutOfBoundsException.class, () -> p.parseIndex("4", 3));
         assertThrows(NumberFormatException.class, () -> p.parseIndex("abc", 3));
     }
+
+    @Test
+    void parse_matchesKeywordCaseInsensitively() {
+        Parser p = new Parser();
+        assertEquals(Parser.CommandType.LIST, p.parse("  LiSt  ").type);
+        assertEquals(Parser.CommandType.UNKNOWN, p.parse("listing").type);
+        assertEquals(Parser.CommandType.UNKNOWN, p.parse("").type);
+        Parser.Parsed parsed = p.parse("todo   read book  ");
+        assertEquals(Parser.CommandType.TODO, parsed.type);
+        assertEquals("read book", parsed.arg);
+        assertEquals("todo   read book", parsed.raw);
+    }
+
+    @Test
+    void parseEventArgs_splitsOnMarkers() {
+        Parser p = new Parser();
+        Parser.EventArgs e = p.parseEventArgs("project meeting /from Mon 2pm /to 4pm");
+        assertEquals("project meeting", e.desc);
+        assertEquals("Mon 2pm", e.from);
+        assertEquals("4pm", e.to);
+        assertThrows(IllegalArgumentException.class, () -> p.parseEventArgs("camp /from mon"));
+        assertThrows(IllegalArgumentException.class, () -> p.parseEventArgs("camp /from /to tue"));
+    }
+
+    @Test
+    void dateParser_matchesFormatterBehaviour() {
+        assertEquals(LocalDate.of(2019, 2, 28), DateParser.parse("2019-02-30"));
+        assertEquals(LocalDate.of(2019, 12, 2), DateParser.parse("02/12/2019"));
+        assertSame(DateParser.parse("2/12/2019"), DateParser.parse("2019-12-02"));
+        assertThrows(DateTimeParseException.class, () -> DateParser.parse("2019-13-01"));
+        assertThrows(DateTimeParseException.class, () -> DateParser.parse("Sunday"));
+    }
+
+    @Test
+    void parseDueArgs_acceptsOneOrTwoDates() {
+        Parser p = new Parser();
+        assertEquals(Parser.CommandType.DUE, p.parse("DUE 2019-12-02").type);
+        Parser.DueArgs upTo = p.parseDueArgs("2019-12-02");
+        assertEquals(null, upTo.from);
+        assertEquals(LocalDate.of(2019, 12, 2), upTo.to);
+        Parser.DueArgs range = p.parseDueArgs("1/12/2019   2019-12-07");
+        assertEquals(LocalDate.of(2019, 12, 1), range.from);
+        assertEquals(LocalDate.of(2019, 12, 7), range.to);
+        assertThrows(IllegalArgumentException.class, () -> p.parseDueArgs(""));
+        assertThrows(IllegalArgumentException.class, () -> p.parseDueArgs("2019-12-07 2019-12-01"));
+        assertThrows(DateTimeParseException.class, () -> p.parseDueArgs("tomorrow"));
+    }
+
+    @Test
+    void parseEventArgs_typesDateTimesAndKeepsText() {
+        Parser p = new Parser();
+        Parser.EventArgs e = p.parseEventArgs("exam /from 2/12/2019 14:00 /to 2019-12-02 1600");
+        assertEquals("2/12/2019 14:00", e.from);
+        assertEquals(LocalDateTime.of(2019, 12, 2, 14, 0), e.start);
+        assertEquals(LocalDateTime.of(2019, 12, 2, 16, 0), e.end);
+
+        Parser.EventArgs camp = p.parseEventArgs("camp /from 2019-12-01 /to 2019-12-01");
+        assertEquals(LocalDateTime.of(2019, 12, 2, 0, 0), camp.end);
+
+        Parser.EventArgs free = p.parseEventArgs("meeting /from Mon 2pm /to 4pm");
+        assertEquals(null, free.start);
+        assertEquals(null, free.end);
+        assertThrows(IllegalArgumentException.class, () -> p.parseEventArgs("x /from 2019-12-03 /to 2019-12-01"));
+    }
+
+    @Test
+    void parseListFilter_acceptsSingularAndPlural() {
+        Parser p = new Parser();
+        assertEquals(TaskList.Filter.DEADLINES, p.parseListFilter("Deadlines"));
+        assertEquals(TaskList.Filter.TODOS, p.parseListFilter("todo"));
+        assertEquals(TaskList.Filter.PENDING, p.parseListFilter(" undone "));
+        assertThrows(IllegalArgumentException.class, () -> p.parseListFilter("everything"));
+    }
+
+    @Test
+    void parseListArgs_readsFilterAndPageChoice() {
+        Parser p = new Parser();
+        Parser.ListArgs plain = p.parseListArgs("");
+        assertEquals(null, plain.filter);
+        assertEquals(1, plain.page);
+        Parser.ListArgs paged = p.parseListArgs("pending page 3");
+        assertEquals(TaskList.Filter.PENDING, paged.filter);
+        assertEquals(3, paged.page);
+        assertTrue(p.parseListArgs("next").next);
+        assertTrue(p.parseListArgs("done all").all);
+        Parser.ListArgs sorted = p.parseListArgs("todos by date page 2");
+        assertEquals(TaskList.Filter.TODOS, sorted.filter);
+        assertEquals(TaskList.Order.DATE, sorted.order);
+        assertEquals(2, sorted.page);
+        assertEquals(TaskList.Order.STATUS, p.parseListArgs("by status").order);
+        assertThrows(IllegalArgumentException.class, () -> p.parseListArgs("by size"));
+        assertThrows(IllegalArgumentException.class, () -> p.parseListArgs("page 0"));
+        assertThrows(IllegalArgumentException.class, () -> p.parseListArgs("page two"));
+        assertThrows(IllegalArgumentException.class, () -> p.parseListArgs("done next"));
+    }
+
+    @Test
+    void parseIndices_acceptsListsAndRanges() {
+        Parser p = new Parser();
+        assertArrayEquals(new int[] {1}, p.parseIndices("2", 5));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, p.parseIndices("4, 1-3 ,5,2", 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> p.parseIndices("3-1", 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> p.parseIndices("1-6", 5));
+        assertThrows(NumberFormatException.class, () -> p.parseIndices("1,,2", 5));
+    }
 }
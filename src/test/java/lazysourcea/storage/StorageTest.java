@@ -1,17 +1,28 @@
 package lazysourcea.storage;
 
 import lazysourcea.task.Deadline;
+import lazysourcea.task.Event;
 import lazysourcea.task.Task;
 import lazysourcea.task.TaskList;
 import lazysourcea.task.Todo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StorageTest {
@@ -39,4 +50,325 @@ public class StorageTest {
         assertEquals(t1.toDataString(), loaded.get(0).toDataString());
         assertEquals(t2.toDataString(), loaded.get(1).toDataString());
     }
+
+    @Test
+    void append_replaysJournalOverSnapshot() {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("A"), new Todo("B")));
+        storage.save(tasks);
+
+        Task c = new Todo("C");
+        tasks.add(c);
+        storage.append(JournalEntry.add(c), tasks);
+        tasks.get(0).markDone();
+        storage.append(JournalEntry.mark(0), tasks);
+        tasks.remove(1);
+        storage.append(JournalEntry.delete(1), tasks);
+
+        var loaded = new Storage(tempDir.toString(), "duke.txt").load();
+        assertEquals(2, loaded.size());
+        assertEquals("T | 1 | A", loaded.get(0).toDataString());
+        assertEquals("T | 0 | C", loaded.get(1).toDataString());
+    }
+
+    @Test
+    void append_compactsJournalPastThreshold() {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        storage.setCompactThreshold(2);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Task t = new Todo("t" + i);
+            tasks.add(t);
+            storage.append(JournalEntry.add(t), tasks);
+        }
+
+        assertEquals(0, storage.journalSize());
+        assertEquals(3, new Storage(tempDir.toString(), "duke.txt").load().size());
+    }
+
+    @Test
+    void writeBehind_coalescesUntilFlush() {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        storage.enableWriteBehind(60_000, 1_000);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task t = new Todo("t" + i);
+            tasks.add(t);
+            storage.append(JournalEntry.add(t), tasks);
+        }
+        assertEquals(0, new Storage(tempDir.toString(), "duke.txt").load().size());
+
+        storage.close();
+        assertEquals(100, new Storage(tempDir.toString(), "duke.txt").load().size());
+    }
+
+    @Test
+    void save_keepsBufferedEntriesWhenSnapshotFails() throws Exception {
+        new Storage(tempDir.toString(), "duke.txt").save(List.of(new Todo("a")));
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        storage.enableWriteBehind(60_000, 1_000);
+        List<Task> tasks = new ArrayList<>(storage.load());
+        Task b = new Todo("b");
+        tasks.add(b);
+        storage.append(JournalEntry.add(b), tasks);
+
+        // A directory where the temporary snapshot goes makes the write fail.
+        Path blocker = tempDir.resolve("duke.txt.tmp");
+        Files.createDirectory(blocker);
+        Files.writeString(blocker.resolve("x"), "");
+        storage.save(tasks);
+        storage.close();
+
+        List<Task> reloaded = new Storage(tempDir.toString(), "duke.txt").load();
+        assertEquals(2, reloaded.size());
+        assertEquals("b", reloaded.get(1).getDescription());
+    }
+
+    @Test
+    void flush_keepsEntriesWhenJournalWriteFails() throws Exception {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("a")));
+        storage.save(tasks);
+        storage.enableWriteBehind(60_000, 1_000);
+
+        // A directory in place of the journal makes every append fail.
+        Path blocker = tempDir.resolve("duke.txt.journal");
+        Files.createDirectory(blocker);
+        Task b = new Todo("b");
+        tasks.add(b);
+        storage.append(JournalEntry.add(b), tasks);
+        storage.flush();
+        assertTrue(storage.takeWriteError().contains("duke.txt.journal"));
+        assertNull(storage.takeWriteError());
+        assertThrows(UncheckedIOException.class, storage::close);
+
+        Files.delete(blocker);
+        Task c = new Todo("c");
+        tasks.add(c);
+        storage.append(JournalEntry.add(c), tasks);
+        storage.close();
+        assertNull(storage.takeWriteError());
+
+        List<Task> reloaded = new Storage(tempDir.toString(), "duke.txt").load();
+        assertEquals(3, reloaded.size());
+        assertEquals("b", reloaded.get(1).getDescription());
+        assertEquals("c", reloaded.get(2).getDescription());
+    }
+
+    @Test
+    void load_reportsMalformedLines() throws Exception {
+        Files.writeString(tempDir.resolve("duke.txt"),
+                "T | 0 | read book\nD | 1 | return book | not-a-date\n\nE | 0 | camp | mon | tue\nX | 0\n");
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+
+        var loaded = storage.load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("E | 0 | camp | mon | tue", loaded.get(1).toDataString());
+        assertEquals(2, storage.getLoadErrors().size());
+        assertTrue(storage.getLoadErrors().get(0).contains("line 2"));
+        assertTrue(storage.getLoadErrors().get(1).contains("line 5"));
+    }
+
+    @Test
+    void binaryFormat_roundTripsAndIsDetectedOnLoad() {
+        Storage storage = new Storage(tempDir.toString(), "duke.bin");
+        storage.setFormat(Storage.Format.BINARY);
+        Task d = new Deadline("pay | rent", LocalDate.of(2024, 2, 29));
+        d.markDone();
+        storage.save(List.of(new Todo("read book"), d, new Event("camp", "mon", "tue")));
+
+        Storage reopened = new Storage(tempDir.toString(), "duke.bin");
+        var loaded = reopened.load();
+
+        assertEquals(Storage.Format.BINARY, reopened.getFormat());
+        assertEquals(3, loaded.size());
+        assertEquals("pay | rent", loaded.get(1).getDescription());
+        assertEquals(d.toDataString(), loaded.get(1).toDataString());
+        assertEquals("E | 0 | camp | mon | tue", loaded.get(2).toDataString());
+    }
+
+    @Test
+    void binaryFormat_reportsCorruptLengthsInsteadOfAllocating() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.write(bytes, List.of(new Todo("ok"), new Todo("broken")));
+        byte[] data = bytes.toByteArray();
+        // Second record: type, flags, then a description length claiming 2 GB.
+        int second = BinaryCodec.HEADER_BYTES + 2 + 4 + 2 + 2;
+        ByteBuffer.wrap(data).putInt(second, Integer.MAX_VALUE - 8);
+
+        List<Task> tasks = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        BinaryCodec.read(new ByteArrayInputStream(data), tasks, errors);
+
+        assertEquals(1, tasks.size());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("record 2"), errors.get(0));
+    }
+
+    @Test
+    void convert_textToBinaryAndBack() throws Exception {
+        Path text = tempDir.resolve("a.txt");
+        Files.writeString(text, "T | 1 | read book\nD | 0 | return book | 2019-12-02\n");
+        Path bin = tempDir.resolve("a.bin");
+        Path back = tempDir.resolve("b.txt");
+        List<String> errors = new ArrayList<>();
+
+        assertEquals(2, SnapshotConverter.convert(text, bin, Storage.Format.BINARY, errors));
+        assertEquals(2, SnapshotConverter.convert(bin, back, Storage.Format.TEXT, errors));
+
+        assertTrue(errors.isEmpty());
+        assertEquals(Files.readAllLines(text), Files.readAllLines(back));
+    }
+
+    @Test
+    void loadLazily_materializesOnlyTouchedSegments() {
+        Storage storage = new Storage(tempDir.toString(), "duke.bin");
+        storage.setFormat(Storage.Format.BINARY);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Todo("t" + i));
+        }
+        storage.save(tasks);
+
+        Storage reopened = new Storage(tempDir.toString(), "duke.bin");
+        MappedTaskList lazy = (MappedTaskList) reopened.loadLazily();
+        assertEquals(5000, lazy.size());
+        assertEquals(0, lazy.loadedSegments());
+
+        assertEquals("t4321", lazy.get(4321).getDescription());
+        lazy.remove(0);
+        lazy.add(new Todo("new"));
+        assertEquals(2, lazy.loadedSegments());
+        assertEquals("t1", lazy.get(0).getDescription());
+        assertEquals("new", lazy.get(4999).getDescription());
+        reopened.close();
+    }
+
+    @Test
+    void loadLazily_opensSnapshotOfEmptyList() {
+        Storage storage = new Storage(tempDir.toString(), "duke.bin");
+        storage.setFormat(Storage.Format.BINARY);
+        storage.save(List.of());
+
+        Storage reopened = new Storage(tempDir.toString(), "duke.bin");
+        List<Task> lazy = reopened.loadLazily();
+        assertEquals(0, lazy.size());
+        assertTrue(reopened.getLoadErrors().isEmpty());
+        lazy.add(new Todo("first"));
+        assertEquals("first", lazy.get(0).getDescription());
+        reopened.close();
+    }
+
+    @Test
+    void loadLazily_neverSavesOverUnreadableSegments() throws Exception {
+        Storage storage = new Storage(tempDir.toString(), "duke.bin");
+        storage.setFormat(Storage.Format.BINARY);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo(String.format("t%04d", i)));
+        }
+        storage.save(tasks);
+        Path file = tempDir.resolve("duke.bin");
+        byte[] data = Files.readAllBytes(file);
+        // Each record is type, flags, description length, then the text.
+        int at = new String(data, StandardCharsets.ISO_8859_1).indexOf("t1500") - 6;
+        data[at] = 'Z';
+        Files.write(file, data);
+
+        Storage reopened = new Storage(tempDir.toString(), "duke.bin");
+        List<Task> lazy = reopened.loadLazily();
+        assertTrue(reopened.getLoadErrors().isEmpty());
+        assertEquals("(unreadable task)", lazy.get(1500).getDescription());
+        assertEquals(1, reopened.getLoadErrors().size());
+        Task first = lazy.get(0);
+        first.markDone();
+        lazy.set(0, first);
+        reopened.append(JournalEntry.mark(0), lazy);
+        reopened.save(lazy);
+        reopened.close();
+        assertArrayEquals(data, Files.readAllBytes(file));
+
+        Storage again = new Storage(tempDir.toString(), "duke.bin");
+        List<Task> reloaded = again.loadLazily();
+        assertTrue(reloaded.get(0).isDone());
+        assertEquals("t1499", reloaded.get(1499).getDescription());
+        assertEquals("t2048", reloaded.get(2048).getDescription());
+        again.close();
+    }
+
+    @Test
+    void save_patchesOnlyChangedTasks() throws Exception {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new Todo("t" + i));
+        }
+        storage.save(tasks);
+
+        tasks.get(3).markDone();
+        tasks.remove(1);
+        tasks.add(new Deadline("d", LocalDate.of(2020, 1, 1)));
+        storage.save(tasks);
+
+        List<String> expected = new ArrayList<>();
+        for (Task t : tasks) {
+            expected.add(t.toDataString());
+        }
+        assertEquals(expected, Files.readAllLines(tempDir.resolve("duke.txt")));
+
+        tasks.get(0).markDone();
+        storage.save(tasks);
+        assertEquals("T | 1 | t0", Files.readAllLines(tempDir.resolve("duke.txt")).get(0));
+        assertEquals(5, new Storage(tempDir.toString(), "duke.txt").load().size());
+    }
+
+    @Test
+    void loadOffHeap_savesStraightFromArena() {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> seed = new ArrayList<>();
+        seed.add(new Todo("read book"));
+        seed.add(new Deadline("return book", LocalDate.of(2019, 12, 2)));
+        seed.add(new Event("camp", "2019-12-01", "2019-12-03"));
+        storage.save(seed);
+
+        Storage offHeap = new Storage(tempDir.toString(), "duke.txt");
+        TaskList list = new TaskList(offHeap.loadOffHeap());
+        assertEquals(3, list.listSize());
+        list.markTask(2);
+        list.removeTask(0);
+        list.addTask(new Todo("buy pen"));
+        offHeap.save(list.asList());
+        assertEquals(Storage.Format.BINARY, offHeap.getFormat());
+        offHeap.close();
+
+        List<Task> loaded = new Storage(tempDir.toString(), "duke.txt").load();
+        assertEquals(3, loaded.size());
+        assertEquals("D | 0 | return book | 2019-12-02", loaded.get(0).toDataString());
+        assertEquals("E | 1 | camp | 2019-12-01 | 2019-12-03", loaded.get(1).toDataString());
+        assertEquals("T | 0 | buy pen", loaded.get(2).toDataString());
+    }
+
+    @Test
+    void loadOffHeap_replaysMarksFromJournal() {
+        Storage storage = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> tasks = new ArrayList<>(List.of(new Todo("a"), new Todo("b")));
+        tasks.get(1).markDone();
+        storage.save(tasks);
+        tasks.get(0).markDone();
+        storage.append(JournalEntry.mark(0), tasks);
+        tasks.get(1).markNotDone();
+        storage.append(JournalEntry.unmark(1), tasks);
+
+        Storage offHeap = new Storage(tempDir.toString(), "duke.txt");
+        List<Task> loaded = offHeap.loadOffHeap();
+        assertEquals("T | 1 | a", loaded.get(0).toDataString());
+        assertEquals("T | 0 | b", loaded.get(1).toDataString());
+        offHeap.save(loaded);
+        offHeap.close();
+
+        List<Task> reloaded = new Storage(tempDir.toString(), "duke.txt").load();
+        assertEquals("T | 1 | a", reloaded.get(0).toDataString());
+        assertEquals("T | 0 | b", reloaded.get(1).toDataString());
+    }
 }
@@ -1,7 +1,19 @@
 package lazysourcea.task;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -33,4 +45,560 @@ public class TaskListTest {
         TaskList list = new TaskList();
         assertThrows(IndexOutOfBoundsException.class, () -> list.getTask(0));
     }
+
+    @Test
+    void find_usesIndexAndReportsCurrentPositions() {
+        TaskList list = new TaskList();
+        list.addTask(new Todo("read book"));
+        list.addTask(new Todo("buy pen"));
+        list.addTask(new Todo("return Book to library"));
+        assertArrayEquals(new int[] {0, 2}, list.find("boo"));
+
+        list.removeTask(0);
+        list.addTask(new Todo("book flight"));
+        assertArrayEquals(new int[] {1, 2}, list.find("BOOK"));
+        assertArrayEquals(new int[] {1}, list.find("book library"));
+        assertArrayEquals(new int[] {0, 1}, list.find("pen OR library"));
+        assertArrayEquals(new int[0], list.find("camp"));
+    }
+
+    @Test
+    void find_substringModeMatchesInsideWords() {
+        TaskList list = new TaskList();
+        list.addTask(new Todo("read book"));
+        list.addTask(new Todo("Notebook shopping"));
+        list.addTask(new Todo("buy pen"));
+        assertArrayEquals(new int[] {0, 1}, list.find("OOK"));
+        assertArrayEquals(new int[] {1}, list.find("ebo"));
+        assertArrayEquals(new int[] {1, 2}, list.find("p"));
+        assertArrayEquals(new int[0], list.find("kbo"));
+
+        list.setSearchMode(TaskList.SearchMode.WORD);
+        assertArrayEquals(new int[0], list.find("ook"));
+        assertArrayEquals(new int[] {1}, list.find("note"));
+    }
+
+    @Test
+    void chunkedList_matchesArrayListUnderRandomEdits() {
+        List<Task> expected = new ArrayList<>();
+        ChunkedTaskList actual = new ChunkedTaskList();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                Task t = new Todo("t" + i);
+                int at = op < 2 ? expected.size() : random.nextInt(expected.size() + 1);
+                expected.add(at, t);
+                actual.add(at, t);
+            } else if (op < 9) {
+                int at = op == 5 ? 0 : random.nextInt(expected.size());
+                assertSame(expected.remove(at), actual.remove(at));
+            } else {
+                int at = random.nextInt(expected.size());
+                assertSame(expected.get(at), actual.get(at));
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void dueBetween_returnsDeadlinesInDateOrder() {
+        TaskList list = new TaskList();
+        list.addTask(new Deadline("essay", LocalDate.of(2019, 12, 5)));
+        list.addTask(new Todo("read book"));
+        list.addTask(new Deadline("quiz", LocalDate.of(2019, 12, 1)));
+        list.addTask(new Deadline("report", LocalDate.of(2019, 12, 9)));
+        assertArrayEquals(new int[] {2, 0}, list.dueBetween(null, LocalDate.of(2019, 12, 5)));
+
+        list.removeTask(2);
+        list.addTask(new Deadline("exam", LocalDate.of(2019, 12, 3)));
+        assertArrayEquals(new int[] {3, 0}, list.dueBetween(LocalDate.of(2019, 12, 2), LocalDate.of(2019, 12, 8)));
+        assertArrayEquals(new int[0], list.dueBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 2, 1)));
+    }
+
+    @Test
+    void eventsOverlapping_usesTypedTimesAndStaysCurrent() {
+        TaskList list = new TaskList();
+        list.addTask(new Event("camp", "2019-12-01", "2019-12-03"));
+        list.addTask(new Event("meeting", "Mon 2pm", "4pm"));
+        list.addTask(new Event("exam", "2019-12-02 14:00", "2019-12-02 16:00"));
+        LocalDateTime dec2 = LocalDateTime.of(2019, 12, 2, 0, 0);
+        assertArrayEquals(new int[] {0, 2}, list.eventsOverlapping(dec2, dec2.plusDays(1)));
+        assertArrayEquals(new int[0], list.eventsOverlapping(dec2.plusDays(2), dec2.plusDays(3)));
+
+        Event talk = new Event("talk", "2019-12-02 15:00", "2019-12-02 17:00");
+        assertArrayEquals(new int[] {0, 2}, list.conflictsWith(talk));
+        list.removeTask(0);
+        list.addTask(talk);
+        assertArrayEquals(new int[] {1}, list.conflictsWith(talk));
+        assertArrayEquals(new int[0], list.conflictsWith(new Event("call", "Mon", "Tue")));
+    }
+
+    @Test
+    void eventsOverlapping_matchesBruteForce() {
+        TaskList list = new TaskList();
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < 2000; i++) {
+            if (i % 5 == 4 && list.listSize() > 0) {
+                list.removeTask(random.nextInt(list.listSize()));
+            }
+            LocalDateTime start = base.plusHours(random.nextInt(24 * 60));
+            list.addTask(new Event("e" + i, "", "", start, start.plusHours(1 + random.nextInt(48))));
+        }
+        for (int q = 0; q < 200; q++) {
+            LocalDateTime from = base.plusHours(random.nextInt(24 * 60));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(24));
+            int[] actual = list.eventsOverlapping(from, to);
+            Arrays.sort(actual);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < list.listSize(); i++) {
+                Event e = (Event) list.getTask(i);
+                if (e.getStart().isBefore(to) && e.getEnd().isAfter(from)) {
+                    expected.add(i);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual);
+        }
+    }
+
+    @Test
+    void filterAndCount_followMarksAddsAndDeletes() {
+        TaskList list = new TaskList();
+        list.addTask(new Todo("read book"));
+        list.addTask(new Deadline("essay", LocalDate.of(2019, 12, 5)));
+        list.addTask(new Event("camp", "Mon", "Tue"));
+        list.markTask(1);
+        assertEquals(1, list.count(TaskList.Filter.DONE));
+        assertArrayEquals(new int[] {0, 2}, list.filter(TaskList.Filter.PENDING));
+
+        list.markTask(0);
+        list.unmarkTask(1);
+        list.removeTask(0);
+        list.addTask(new Todo("buy pen"));
+        assertEquals(0, list.count(TaskList.Filter.DONE));
+        assertEquals(3, list.count(TaskList.Filter.PENDING));
+        assertArrayEquals(new int[] {2}, list.filter(TaskList.Filter.TODOS));
+        assertArrayEquals(new int[] {0}, list.filter(TaskList.Filter.DEADLINES));
+        assertEquals(1, list.count(TaskList.Filter.EVENTS));
+    }
+
+    @Test
+    void columnarList_roundTripsTasksUnderRandomEdits() {
+        List<Task> expected = new ArrayList<>();
+        ColumnarTaskList actual = new ColumnarTaskList();
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                Task t = op % 3 == 0 ? new Todo("todo ü " + i)
+                        : op % 3 == 1 ? new Deadline("d" + i, LocalDate.of(2020, 1, 1).plusDays(i))
+                        : new Event("e" + i, "Mon", "Tue " + i);
+                if (random.nextBoolean()) {
+                    t.markDone();
+                }
+                int at = random.nextInt(expected.size() + 1);
+                expected.add(at, t);
+                actual.add(at, t);
+            } else if (op < 9) {
+                int at = random.nextInt(expected.size());
+                expected.remove(at);
+                actual.remove(at);
+            } else {
+                int at = random.nextInt(expected.size());
+                Task t = actual.get(at);
+                t.markDone();
+                actual.set(at, t);
+                expected.get(at).markDone();
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toDataString(), actual.get(i).toDataString());
+        }
+    }
+
+    @Test
+    void taskList_overColumnarBackendKeepsMarksAndIndexes() {
+        TaskList list = new TaskList(new ColumnarTaskList());
+        list.addTask(new Todo("read book"));
+        list.addTask(new Deadline("return book", LocalDate.of(2019, 12, 2)));
+        assertArrayEquals(new int[] {0, 1}, list.find("book"));
+        list.markTask(1);
+        list.addTask(new Todo("buy book"));
+        assertTrue(list.getTask(1).isDone());
+        assertArrayEquals(new int[] {1}, list.filter(TaskList.Filter.DONE));
+        list.removeTask(0);
+        assertArrayEquals(new int[] {0, 1}, list.find("book"));
+        assertArrayEquals(new int[] {0}, list.dueBetween(null, LocalDate.of(2019, 12, 31)));
+    }
+
+    @Test
+    void offHeapList_reusesFreedSlots() {
+        OffHeapTaskList list = new OffHeapTaskList();
+        for (int i = 0; i < 40_000; i++) {
+            list.add(new Todo("task number " + i));
+        }
+        long reserved = list.reservedBytes();
+        for (int i = 0; i < 20_000; i++) {
+            list.remove(0);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            list.add(i, new Deadline("again " + i, LocalDate.of(2020, 1, 1)));
+        }
+        assertEquals(reserved, list.reservedBytes());
+        assertEquals("D | 0 | again 5 | 2020-01-01", list.get(5).toDataString());
+        assertEquals("T | 0 | task number 20000", list.get(20_000).toDataString());
+        list.close();
+    }
+
+    @Test
+    void concurrentAccess_writerSeesCurrentPositionsWhileReadersRun() throws Exception {
+        TaskList list = new TaskList();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            list.addTask(new Todo("t" + i));
+            expected.add("t" + i);
+        }
+        list.enableConcurrentAccess();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            int seed = r;
+            readers.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (!done.get()) {
+                    try {
+                        list.getTask(random.nextInt(list.listSize()));
+                    } catch (IndexOutOfBoundsException ignored) {
+                        // The list shrank between the two calls.
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        List<String> wrong = new ArrayList<>();
+        Random random = new Random(11);
+        try {
+            for (int i = 0; i < 19000 && wrong.isEmpty(); i++) {
+                int k = random.nextInt(expected.size() - 1);
+                list.write(() -> {
+                    list.removeTask(0);
+                    expected.remove(0);
+                    String got = list.getTask(k).getDescription();
+                    if (!got.equals(expected.get(k))) {
+                        wrong.add("got " + got + " want " + expected.get(k) + " at " + k);
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            done.set(true);
+            for (Thread t : readers) {
+                t.join();
+            }
+        }
+        assertEquals(List.of(), wrong);
+    }
+
+    @Test
+    void concurrentAccess_readersAlwaysSeeWholeWrites() throws Exception {
+        TaskList list = new TaskList();
+        for (int i = 0; i < 1000; i++) {
+            list.addTask(new Todo("apple " + i));
+            list.addTask(new Todo("pear " + i));
+        }
+        list.enableConcurrentAccess();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(3);
+            for (int i = 0; i < 5000; i++) {
+                int n = i;
+                list.write(() -> {
+                    if (random.nextBoolean()) {
+                        list.addTask(new Todo("apple x" + n));
+                        list.addTask(new Todo("pear x" + n));
+                    } else {
+                        int at = 2 * random.nextInt(list.listSize() / 2);
+                        list.removeTask(at);
+                        list.removeTask(at);
+                    }
+                    return null;
+                });
+            }
+            done.set(true);
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                while (!done.get()) {
+                    boolean whole = list.read(l -> {
+                        int[] apples = l.find("apple");
+                        int[] pears = l.find("pear");
+                        if (apples.length != pears.length || apples.length * 2 != l.listSize()) {
+                            return false;
+                        }
+                        for (int i : apples) {
+                            if (!l.getTask(i).getDescription().startsWith("apple")) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    });
+                    if (!whole) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        writer.start();
+        writer.join();
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertEquals(0, torn.get());
+        assertEquals(list.listSize() / 2, list.find("pear").length);
+    }
+
+    @Test
+    void undoRedo_restoreEarlierVersionsAndKeepIndexesCurrent() {
+        TaskList list = new TaskList();
+        Random random = new Random(11);
+        List<List<String>> versions = new ArrayList<>();
+        versions.add(List.of());
+        for (int step = 0; step < 300; step++) {
+            int n = list.listSize();
+            int op = n == 0 ? 0 : random.nextInt(4);
+            if (op == 0) {
+                list.addTask(new Todo("task " + step));
+            } else if (op == 1) {
+                list.removeTask(random.nextInt(n));
+            } else if (op == 2) {
+                list.markTask(random.nextInt(n));
+            } else {
+                list.write(() -> {
+                    list.unmarkTask(random.nextInt(n));
+                    return list.removeTask(random.nextInt(n));
+                });
+            }
+            if (step == 150) {
+                list.find("task");
+            }
+            versions.add(snapshot(list));
+        }
+        int back = TaskList.HISTORY_LIMIT;
+        for (int k = 1; k <= back; k++) {
+            assertFalse(list.undo(c -> { }).isEmpty());
+            assertEquals(versions.get(versions.size() - 1 - k), snapshot(list));
+        }
+        assertTrue(list.undo(c -> { }).isEmpty());
+        for (int k = back - 1; k >= back / 2; k--) {
+            list.redo(c -> { });
+            assertEquals(versions.get(versions.size() - 1 - k), snapshot(list));
+        }
+        List<String> current = snapshot(list);
+        int[] found = list.find("task");
+        assertEquals(current.size(), found.length);
+        list.addTask(new Todo("fresh"));
+        assertTrue(list.redo(c -> { }).isEmpty());
+        list.undo(c -> { });
+        assertEquals(current, snapshot(list));
+    }
+
+    private static List<String> snapshot(TaskList list) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < list.listSize(); i++) {
+            lines.add(list.getTask(i).toDataString());
+        }
+        return lines;
+    }
+
+    @Test
+    void sortedOrders_matchStableSortUnderRandomEdits() {
+        TaskList list = new TaskList();
+        for (TaskList.Order order : TaskList.Order.values()) {
+            list.sorted(order);
+        }
+        Random random = new Random(17);
+        for (int step = 0; step < 2000; step++) {
+            int n = list.listSize();
+            int op = n == 0 ? 0 : random.nextInt(5);
+            if (op <= 1) {
+                int kind = random.nextInt(3);
+                LocalDate day = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(30));
+                list.addTask(kind == 0 ? new Todo("t" + step)
+                        : kind == 1 ? new Deadline("d" + step, day)
+                        : new Event("e" + step, day + " 10:00", day + " 12:00"));
+            } else if (op == 2) {
+                list.removeTask(random.nextInt(n));
+            } else if (op == 3) {
+                list.markTask(random.nextInt(n));
+            } else {
+                list.unmarkTask(random.nextInt(n));
+            }
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < list.listSize(); i++) {
+            positions.add(i);
+        }
+        List<Integer> byDate = new ArrayList<>(positions);
+        byDate.sort(Comparator.comparingLong(i -> dateKey(list.getTask(i))));
+        List<Integer> byStatus = new ArrayList<>(positions);
+        byStatus.sort(Comparator.comparing(i -> list.getTask(i).isDone()));
+        List<Integer> byType = new ArrayList<>(positions);
+        byType.sort(Comparator.comparing(i -> list.getTask(i).toDataString().charAt(0) == 'T' ? 0
+                : list.getTask(i).toDataString().charAt(0) == 'D' ? 1 : 2));
+        assertEquals(byDate, toList(list.sorted(TaskList.Order.DATE)));
+        assertEquals(byStatus, toList(list.sorted(TaskList.Order.STATUS)));
+        assertEquals(byType, toList(list.sorted(TaskList.Order.TYPE)));
+
+        List<String> page = new ArrayList<>();
+        int total = list.listWindow(TaskList.Filter.PENDING, TaskList.Order.DATE, 5, 10, page::add);
+        List<Integer> pending = new ArrayList<>(byDate);
+        pending.removeIf(i -> list.getTask(i).isDone());
+        assertEquals(pending.size(), total);
+        for (int k = 0; k < page.size(); k++) {
+            int i = pending.get(5 + k);
+            assertEquals((i + 1) + ". " + list.getTask(i), page.get(k));
+        }
+    }
+
+    @Test
+    void sortedOrders_stayStableWhenBucketsSpanManyChunks() {
+        TaskList list = new TaskList();
+        for (int i = 0; i < 6000; i++) {
+            list.addTask(i % 3 == 0 ? new Deadline("d" + i, LocalDate.of(2024, 1, 1)) : new Todo("t" + i));
+        }
+        list.sorted(TaskList.Order.STATUS);
+        list.sorted(TaskList.Order.TYPE);
+        Random random = new Random(5);
+        for (int step = 0; step < 4000; step++) {
+            int n = list.listSize();
+            int at = random.nextBoolean() ? random.nextInt(Math.min(n, 50)) : random.nextInt(n);
+            switch (random.nextInt(4)) {
+            case 0:
+                list.removeTask(at);
+                break;
+            case 1:
+                list.markTask(at);
+                break;
+            case 2:
+                list.unmarkTask(at);
+                break;
+            default:
+                list.addTask(new Todo("n" + step));
+                break;
+            }
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < list.listSize(); i++) {
+            positions.add(i);
+        }
+        List<Integer> byStatus = new ArrayList<>(positions);
+        byStatus.sort(Comparator.comparing(i -> list.getTask(i).isDone()));
+        List<Integer> byType = new ArrayList<>(positions);
+        byType.sort(Comparator.comparing(i -> list.getTask(i) instanceof Deadline));
+        assertEquals(byStatus, toList(list.sorted(TaskList.Order.STATUS)));
+        assertEquals(byType, toList(list.sorted(TaskList.Order.TYPE)));
+    }
+
+    @Test
+    public void reminders_fireOnceAndFollowMarkAndDelete() {
+        TaskList list = new TaskList();
+        list.addTask(new Deadline("report", LocalDate.of(2024, 3, 2)));
+        list.addTask(new Event("standup", "2024-03-01 10:00", "2024-03-01 10:15"));
+        list.addTask(new Deadline("taxes", LocalDate.of(2024, 6, 1)));
+        list.addTask(new Todo("read"));
+        list.addTask(new Deadline("today", LocalDate.of(2024, 3, 1)));
+        list.enableReminders(LocalDateTime.of(2024, 3, 1, 9, 0), java.time.Duration.ofDays(1),
+                java.time.Duration.ofMinutes(30));
+
+        // Already inside its lead time but not yet due, so it is given at once.
+        assertArrayEquals(new int[] {4}, list.remind(LocalDateTime.of(2024, 3, 1, 9, 0)));
+        assertArrayEquals(new int[0], list.remind(LocalDateTime.of(2024, 3, 1, 9, 29)));
+        assertArrayEquals(new int[] {1}, list.remind(LocalDateTime.of(2024, 3, 1, 9, 30)));
+        assertArrayEquals(new int[0], list.remind(LocalDateTime.of(2024, 3, 1, 9, 45)));
+
+        list.markTask(0);
+        assertArrayEquals(new int[0], list.remind(LocalDateTime.of(2024, 3, 2, 0, 0)));
+        list.unmarkTask(0);
+        assertArrayEquals(new int[] {0}, list.remind(LocalDateTime.of(2024, 3, 2, 0, 1)));
+
+        list.addTask(new Event("lunch", "2024-03-02 12:00", "2024-03-02 13:00"));
+        list.addTask(new Event("dinner", "2024-03-02 19:00", "2024-03-02 21:00"));
+        list.removeTask(6);
+        assertArrayEquals(new int[] {5}, list.remind(LocalDateTime.of(2024, 3, 2, 20, 0)));
+
+        // Months ahead: loaded from the due index once time gets near it.
+        assertArrayEquals(new int[0], list.remind(LocalDateTime.of(2024, 5, 31, 23, 59)));
+        assertArrayEquals(new int[] {2}, list.remind(LocalDateTime.of(2024, 6, 1, 0, 0)));
+        assertArrayEquals(new int[0], list.remind(LocalDateTime.of(2024, 6, 2, 0, 0)));
+    }
+
+    @Test
+    public void findFuzzy_ranksTypoMatchesAndFollowsEdits() {
+        TaskList list = new TaskList();
+        list.addTask(new Todo("return book"));
+        list.addTask(new Todo("buy books"));
+        list.addTask(new Todo("read notebook"));
+        list.addTask(new Todo("cook dinner"));
+
+        assertArrayEquals(new int[0], list.find("bok"));
+        // "book" is one edit away; "books" and "cook" are two, beyond what a short term allows.
+        assertArrayEquals(new int[] {0}, list.findFuzzy("bok"));
+        assertArrayEquals(new int[] {0, 1}, list.findFuzzy("bookz"));
+        assertArrayEquals(new int[] {1, 0}, list.findFuzzy("bookss"));
+        assertArrayEquals(new int[] {0}, list.findFuzzy("retrun bok"));
+        assertArrayEquals(new int[] {2, 3}, list.findFuzzy("notbook OR diner"));
+
+        list.removeTask(0);
+        assertArrayEquals(new int[] {0}, list.findFuzzy("bookss"));
+        list.addTask(new Todo("bookk shelf"));
+        assertArrayEquals(new int[] {0, 3}, list.findFuzzy("bookss"));
+
+        // Matches every position a brute-force scan finds.
+        Random random = new Random(7);
+        String[] words = {"alpha", "alpah", "beta", "betta", "gamma", "gama", "delta", "dealt", "pen", "pan"};
+        for (int i = 0; i < 300; i++) {
+            list.addTask(new Todo(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]));
+            if (i % 7 == 0) {
+                list.removeTask(random.nextInt(list.listSize()));
+            }
+        }
+        for (String term : words) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < list.listSize(); i++) {
+                for (String w : list.getTask(i).getDescription().split(" ")) {
+                    if (FuzzyIndex.distance(term, w) <= (term.length() <= 5 ? 1 : 2)) {
+                        expected.add(i);
+                        break;
+                    }
+                }
+            }
+            List<Integer> actual = toList(list.findFuzzy(term));
+            actual.sort(null);
+            assertEquals(expected, actual, term);
+        }
+    }
+
+    private static long dateKey(Task t) {
+        if (t instanceof Deadline) {
+            return ((Deadline) t).getBy().toEpochDay() * 24 * 60;
+        }
+        if (t instanceof Event && ((Event) t).getStart() != null) {
+            return ((Event) t).getStart().toEpochSecond(java.time.ZoneOffset.UTC) / 60;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static List<Integer> toList(int[] positions) {
+        List<Integer> result = new ArrayList<>();
+        for (int p : positions) {
+            result.add(p);
+        }
+        return result;
+    }
 }
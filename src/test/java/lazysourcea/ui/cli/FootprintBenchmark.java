@@ -0,0 +1,77 @@
+package lazysourcea.ui.cli;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import lazysourcea.task.ColumnarTaskList;
+import lazysourcea.task.Deadline;
+import lazysourcea.task.Event;
+import lazysourcea.task.Task;
+import lazysourcea.task.Todo;
+
+/**
+ * Measures how many heap bytes each task costs in an {@link ArrayList} of
+ * task objects versus a {@link ColumnarTaskList}.
+ * <p>
+ * Usage: {@code FootprintBenchmark [<tasks>]} (default one million). The
+ * same mix of todos, deadlines and events is loaded into each list and the
+ * growth of the used heap after garbage collection is reported. Run with a
+ * heap large enough for both lists, e.g. {@code -Xmx2g}, as
+ * {@code ./gradlew footprintBenchmark} does.
+ */
+public class FootprintBenchmark {
+    private static final String[] WORDS = {
+        "read", "book", "return", "library", "project", "meeting", "buy", "pen", "report", "email"
+    };
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%,d tasks%n", n);
+        report("ArrayList<Task>", n, ArrayList::new);
+        report("ColumnarTaskList", n, ColumnarTaskList::new);
+    }
+
+    private static void report(String name, int n, Supplier<List<Task>> factory) {
+        long before = usedHeap();
+        List<Task> tasks = factory.get();
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            tasks.add(sample(random, i));
+        }
+        long after = usedHeap();
+        System.out.printf("%-18s %6.1f bytes/task%n", name, (after - before) / (double) n);
+        if (tasks.get(n - 1) == null) {
+            throw new AssertionError("keep the list reachable until measured");
+        }
+    }
+
+    private static Task sample(Random random, int i) {
+        String desc = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+        Task t;
+        switch (random.nextInt(3)) {
+        case 0:
+            t = new Todo(desc);
+            break;
+        case 1:
+            t = new Deadline(desc, LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)));
+            break;
+        default:
+            t = new Event(desc, "Mon 2pm", "4pm");
+        }
+        if (random.nextBoolean()) {
+            t.markDone();
+        }
+        return t;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,147 @@
+package lazysourcea.ui.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import lazysourcea.ui.server.SessionServer;
+
+/**
+ * Holds thousands of sessions open against one {@link SessionServer} and
+ * measures how quickly they are served.
+ * <p>
+ * Usage: {@code ServerLoadTest [<sessions> [<users> [<rounds>]]]} (defaults
+ * 2000, 50 and 20), e.g. {@code ./gradlew serverLoadTest --args="2000 50 20"}. Starts a server on a temporary data directory, connects
+ * every session and logs it in as one of the users, then runs the rounds:
+ * in each, every session sends one command (adding, finding, marking or
+ * counting tasks) and waits for its reply, all sessions at once. A few
+ * client threads drive all connections, so the server really has every
+ * session open and busy at the same time. Reports throughput and reply
+ * latency percentiles. The process needs about one file descriptor per
+ * session on each side, e.g. {@code ulimit -n 10000}.
+ */
+public class ServerLoadTest {
+    private static final int CLIENT_THREADS = 8;
+    private static final String[] COMMANDS = {"todo load test %d", "find load", "mark 1", "stats"};
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Path dir = Files.createTempDirectory("lazysourcea-load");
+        try (SessionServer server = new SessionServer(dir, 0, Runtime.getRuntime().availableProcessors(), 50)) {
+            List<Client> clients = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                Client c = new Client(server.port());
+                c.request("user u" + (i % users));
+                clients.add(c);
+            }
+            System.out.printf("%,d sessions open (%,d users), server reports %,d%n",
+                    sessions, users, server.sessionCount());
+
+            long[] latencies = new long[sessions * rounds];
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < CLIENT_THREADS; t++) {
+                int first = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int r = 0; r < rounds; r++) {
+                            String command = String.format(COMMANDS[r % COMMANDS.length], r);
+                            long[] sent = new long[sessions];
+                            // Send on every connection first, then collect the replies.
+                            for (int i = first; i < sessions; i += CLIENT_THREADS) {
+                                sent[i] = System.nanoTime();
+                                clients.get(i).send(command);
+                            }
+                            for (int i = first; i < sessions; i += CLIENT_THREADS) {
+                                if (clients.get(i).reply().isEmpty()) {
+                                    failures.incrementAndGet();
+                                }
+                                latencies[next.getAndIncrement()] = System.nanoTime() - sent[i];
+                            }
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread t : threads) {
+                t.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            int n = next.get();
+            Arrays.sort(latencies, 0, n);
+            System.out.printf("%,d commands in %.2f s: %,.0f commands/s, %d failures%n",
+                    n, elapsed / 1e9, n / (elapsed / 1e9), failures.get());
+            System.out.printf("reply latency p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    latencies[n / 2] / 1e6, latencies[(int) (n * 0.99)] / 1e6, latencies[n - 1] / 1e6);
+            for (Client c : clients) {
+                c.close();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * One blocking connection speaking the server's line protocol.
+     */
+    private static class Client {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Client(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            reply();
+        }
+
+        String request(String command) throws IOException {
+            send(command);
+            return reply();
+        }
+
+        void send(String command) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+        }
+
+        /**
+         * Reads one reply block, undoing the dot-stuffing.
+         */
+        String reply() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null && !line.equals(".")) {
+                sb.append(line.startsWith(".") ? line.substring(1) : line).append('\n');
+            }
+            return sb.toString();
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package lazysourcea.ui.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SessionServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sessions_keepEachUsersTasksApartAndCloseOnBye() throws Exception {
+        try (SessionServer server = new SessionServer(tempDir, 0, 2, 0);
+                Socket alice = new Socket("127.0.0.1", server.port());
+                Socket bob = new Socket("127.0.0.1", server.port())) {
+            BufferedReader aliceIn = reader(alice);
+            BufferedReader bobIn = reader(bob);
+            PrintWriter aliceOut = writer(alice);
+            PrintWriter bobOut = writer(bob);
+            reply(aliceIn);
+            reply(bobIn);
+
+            aliceOut.println("todo read book");
+            assertTrue(reply(aliceIn).startsWith("who are you?"));
+            aliceOut.println("user alice");
+            reply(aliceIn);
+            bobOut.println("user bob");
+            reply(bobIn);
+
+            aliceOut.println("todo read book");
+            assertTrue(reply(aliceIn).contains("now you have 1 task(s) in the list."));
+            bobOut.println("list");
+            assertEquals("(no tasks yet)", reply(bobIn));
+
+            try (Socket alice2 = new Socket("127.0.0.1", server.port())) {
+                BufferedReader in = reader(alice2);
+                PrintWriter out = writer(alice2);
+                reply(in);
+                out.println("user ALICE");
+                reply(in);
+                out.println("list");
+                assertTrue(reply(in).contains("read book"));
+            }
+
+            aliceOut.println("bye");
+            assertFalse(reply(aliceIn).isEmpty());
+            assertNull(aliceIn.readLine());
+            assertTrue(Files.readString(tempDir.resolve("alice.txt.journal")).contains("read book"));
+            assertFalse(Files.exists(tempDir.resolve("bob.txt.journal")));
+        }
+    }
+
+    @Test
+    void sessions_rejectOverlongLinesWithoutRunningThem() throws Exception {
+        try (SessionServer server = new SessionServer(tempDir, 0, 1, 0);
+                Socket carol = new Socket("127.0.0.1", server.port())) {
+            BufferedReader in = reader(carol);
+            PrintWriter out = writer(carol);
+            reply(in);
+            out.println("user carol");
+            reply(in);
+
+            out.println("todo " + "x".repeat(10_000) + " delete 1");
+            assertTrue(reply(in).contains("too long"));
+            out.println("list");
+            assertEquals("(no tasks yet)", reply(in));
+        }
+    }
+
+    @Test
+    void sessions_closeTheCoreWhenItsLastSessionEnds() throws Exception {
+        try (SessionServer server = new SessionServer(tempDir, 0, 2, 60_000)) {
+            try (Socket dave = new Socket("127.0.0.1", server.port());
+                    Socket dave2 = new Socket("127.0.0.1", server.port())) {
+                BufferedReader in = reader(dave);
+                PrintWriter out = writer(dave);
+                BufferedReader in2 = reader(dave2);
+                PrintWriter out2 = writer(dave2);
+                reply(in);
+                reply(in2);
+                out.println("user dave");
+                reply(in);
+                out2.println("user dave");
+                reply(in2);
+                out.println("todo water plants");
+                reply(in);
+                assertEquals(1, server.coreCount());
+
+                out.println("bye");
+                reply(in);
+                assertNull(in.readLine());
+                out2.println("list");
+                assertTrue(reply(in2).contains("water plants"));
+                assertEquals(1, server.coreCount());
+            }
+            for (int i = 0; i < 500 && server.coreCount() > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, server.coreCount());
+            assertTrue(Files.readString(tempDir.resolve("dave.txt.journal")).contains("water plants"));
+
+            try (Socket again = new Socket("127.0.0.1", server.port())) {
+                BufferedReader in = reader(again);
+                PrintWriter out = writer(again);
+                reply(in);
+                out.println("user dave");
+                reply(in);
+                out.println("list");
+                assertTrue(reply(in).contains("water plants"));
+            }
+        }
+    }
+
+    private static BufferedReader reader(Socket s) throws Exception {
+        return new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static PrintWriter writer(Socket s) throws Exception {
+        return new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8);
+    }
+
+    private static String reply(BufferedReader in) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            sb.append(sb.length() == 0 ? "" : "\n").append(line.startsWith(".") ? line.substring(1) : line);
+        }
+        return sb.toString();
+    }
+}